@@ -0,0 +1,241 @@
+// Descrição: Este programa mede o tempo e a memória alocada por operação das funções mais usadas das regras do jogo.
+
+package bench;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import logic.MoveGenerator;
+import logic.MoveLogic;
+import model.Board;
+import model.Game;
+import model.MoveList;
+import model.PositionCodec;
+
+/* O programa é um pequeno equipamento de micro-benchmark: cada caso é executado repetidamente sobre um conjunto fixo de posições de jogo
+ * (obtidas com partidas aleatórias de semente fixa), primeiro para aquecer a JVM e depois para medir. O resultado de cada operação é acumulado
+ * e impresso para que o compilador não possa eliminá-la. A memória alocada é medida pela própria thread (com.sun.management.ThreadMXBean); se
+ * a JVM não oferecer essa medida, o valor aparece como -1.
+ *
+ * Uso: java bench.Benchmark [filtro] [milissegundos de medida por caso]
+ * Exemplo: java bench.Benchmark MoveGenerator 2000
+ */
+public class Benchmark {
+
+	// O tempo padrão de medida de cada caso, em milissegundos.
+	private static final int DEFAULT_MILLIS = 1000;
+
+	// O número de operações entre duas leituras do relógio.
+	private static final int BATCH = 1 << 12;
+
+	// O número de posições usadas pelos casos.
+	private static final int POSITIONS = 256;
+
+	// Uma operação medida.
+	private interface Case {
+
+		// Executa a operação sobre a posição i e retorna um valor qualquer que dependa do resultado.
+		long run(int i);
+	}
+
+	// Os nomes dos casos.
+	private final List<String> names = new ArrayList<>();
+
+	// Os casos.
+	private final List<Case> cases = new ArrayList<>();
+
+	// Os jogos usados pelos casos.
+	private final Game[] games = new Game[POSITIONS];
+
+	// Os estados (strings) dos jogos.
+	private final String[] states = new String[POSITIONS];
+
+	// Uma peça de cada jogo e um destino válido para ela (índices, ou -1 se não houver).
+	private final int[] starts = new int[POSITIONS], ends = new int[POSITIONS];
+
+	// A soma dos resultados, impressa no final para que nenhuma operação seja eliminada.
+	private long sink;
+
+	public Benchmark() {
+		createPositions();
+		createCases();
+	}
+
+	// Joga partidas aleatórias e guarda posições variadas.
+	private void createPositions() {
+		Random random = new Random(20161017L);
+		MoveList list = new MoveList();
+		Game game = new Game();
+		for (int i = 0; i < POSITIONS; i ++) {
+
+			// Avance alguns movimentos, recomeçando quando o jogo acabar
+			int plies = 1 + random.nextInt(12);
+			for (int p = 0; p < plies; p ++) {
+				MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+						game.getSkipIndex(), list);
+				if (list.isEmpty()) {
+					game.restart();
+					continue;
+				}
+				game.makeMove(list.get(random.nextInt(list.size())));
+			}
+			MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+					game.getSkipIndex(), list);
+			if (list.isEmpty()) {
+				game.restart();
+				MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+						game.getSkipIndex(), list);
+			}
+			int move = list.get(random.nextInt(list.size()));
+			this.games[i] = new Game(game.getGameState());
+			this.states[i] = game.getGameState();
+			this.starts[i] = MoveList.getStartIndex(move);
+			this.ends[i] = MoveList.getEndIndex(move);
+		}
+	}
+
+	// Cria os casos medidos.
+	private void createCases() {
+		add("Board.get", i -> {
+			Board b = games[i].getBoardView();
+			long sum = 0;
+			for (int j = 0; j < 32; j ++) {
+				sum += b.get(j);
+			}
+			return sum;
+		});
+		Board[] boards = new Board[POSITIONS];
+		for (int j = 0; j < POSITIONS; j ++) {
+			boards[j] = games[j].getBoard();
+		}
+		add("Board.set", i -> {
+			Board b = boards[i];
+			for (int j = 0; j < 32; j ++) {
+				b.set(j, b.get(31 - j));
+			}
+			return b.getBlack();
+		});
+		add("MoveGenerator.getMoves", i -> {
+			return MoveGenerator.getMoves(games[i].getBoardView(), starts[i]).size();
+		});
+		add("MoveGenerator.getSkips", i -> {
+			return MoveGenerator.getSkips(games[i].getBoardView(), starts[i]).size();
+		});
+		MoveList list = new MoveList();
+		add("MoveGenerator.generate", i -> {
+			Game g = games[i];
+			return MoveGenerator.generate(g.getBoardView(), g.isP1Turn(),
+					g.getSkipIndex(), list);
+		});
+		add("MoveLogic.isValidMove", i -> {
+			return MoveLogic.isValidMove(games[i], starts[i], ends[i])? 1 : 0;
+		});
+		Point[] points = new Point[32];
+		for (int j = 0; j < 32; j ++) {
+			points[j] = Board.toPoint(j);
+		}
+		add("MoveLogic.isSafe", i -> {
+			return MoveLogic.isSafe(games[i].getBoardView(), points[starts[i]])? 1 : 0;
+		});
+		add("Game.move+unmakeMove", i -> {
+			Game g = games[i];
+			g.move(starts[i], ends[i]);
+			g.unmakeMove();
+			return g.getHash();
+		});
+		add("Game.isGameOver", i -> {
+			return games[i].isGameOver()? 1 : 0;
+		});
+		add("Game.getGameState", i -> {
+			return games[i].getGameState().length();
+		});
+		Game target = new Game();
+		add("Game.setGameState", i -> {
+			target.setGameState(states[i]);
+			return target.getHash();
+		});
+		ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.BYTES);
+		add("PositionCodec.encode", i -> {
+			buffer.clear();
+			PositionCodec.encode(games[i], buffer);
+			return buffer.get(0);
+		});
+		add("PositionCodec.decode", i -> {
+			buffer.clear();
+			PositionCodec.encode(games[i], buffer);
+			buffer.flip();
+			PositionCodec.decode(buffer, target);
+			return target.getHash();
+		});
+	}
+
+	// Adiciona um caso.
+	private void add(String name, Case c) {
+		this.names.add(name);
+		this.cases.add(c);
+	}
+
+	/*
+	 * Mede todos os casos cujo nome contém o filtro.
+	 *
+	 * filter: o texto que o nome do caso deve conter (vazio para todos).
+	 * millis: o tempo de medida de cada caso, em milissegundos (o aquecimento usa o mesmo tempo).
+	 */
+	public void run(String filter, int millis) {
+		System.out.printf("%-26s %12s %12s%n", "case", "ns/op", "bytes/op");
+		for (int c = 0; c < cases.size(); c ++) {
+			if (!names.get(c).contains(filter)) {
+				continue;
+			}
+			Case test = cases.get(c);
+			measure(test, millis);
+			long[] result = measure(test, millis);
+			double ns = (double) result[0] / result[1];
+			double bytes = (result[2] < 0)? -1 : (double) result[2] / result[1];
+			System.out.printf("%-26s %12.1f %12.1f%n", names.get(c), ns, bytes);
+		}
+		System.out.println("(sink " + sink + ")");
+	}
+
+	/*
+	 * Executa um caso em lotes até o tempo acabar.
+	 *
+	 * test: o caso a ser executado.
+	 * millis: o tempo mínimo de execução, em milissegundos.
+	 * o tempo em nanossegundos, o número de operações e os bytes alocados (ou -1).
+	 */
+	private long[] measure(Case test, int millis) {
+		long limit = millis * 1000000L, ops = 0, sum = 0;
+		long bytes = allocatedBytes(), start = System.nanoTime(), elapsed;
+		do {
+			for (int j = 0; j < BATCH; j ++) {
+				sum += test.run(j & (POSITIONS - 1));
+			}
+			ops += BATCH;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < limit);
+		long after = allocatedBytes();
+		this.sink += sum;
+		return new long[] {elapsed, ops, (bytes < 0 || after < 0)? -1 : after - bytes};
+	}
+
+	// Obtém o número de bytes alocados pela thread atual até agora, ou -1 se a JVM não oferecer essa medida.
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	public static void main(String[] args) {
+		String filter = (args.length > 0)? args[0] : "";
+		int millis = (args.length > 1)? Integer.parseInt(args[1]) : DEFAULT_MILLIS;
+		new Benchmark().run(filter, millis);
+	}
+}
@@ -0,0 +1,166 @@
+// Descrição: Este programa verifica que PositionCodec codifica e decodifica estados de jogo sem perder informação, nas três formas do codificador.
+
+package bench;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import model.Game;
+import model.PositionCodec;
+
+/* O programa gera posições aleatórias e passa cada uma pelas três formas de PositionCodec (ByteBuffer, vetor de longs e texto). O estado
+ * decodificado é comparado com o original pela string de Game.getGameState, e cada forma também é comparada com a codificação do jogo
+ * reconstruído por Game.setGameState a partir dessa string.
+ *
+ * Metade das posições vem de partidas aleatórias jogadas um passo de cada vez (com Game.move), de modo que os estados com um salto
+ * pendente no meio de um salto múltiplo aparecem naturalmente. A outra metade tem máscaras sorteadas (incluindo o bit 31), a vez sorteada e,
+ * às vezes, um salto pendente em uma peça do jogador da vez.
+ *
+ * Uso: java bench.CodecCheck [posições] [semente]
+ * O programa termina com o código 1 se algum estado não voltar igual.
+ */
+public class CodecCheck {
+
+	// O número padrão de posições verificadas.
+	private static final int DEFAULT_POSITIONS = 200000;
+
+	// O número máximo de passos de uma partida aleatória antes de ela recomeçar.
+	private static final int MAX_STEPS = 300;
+
+	// O gerador das posições.
+	private final Random random;
+
+	// A partida aleatória que fornece as posições jogadas.
+	private final Game walk = new Game();
+
+	// O número de passos da partida aleatória atual.
+	private int steps;
+
+	// O número de posições verificadas com um salto pendente.
+	private int pending;
+
+	public CodecCheck(long seed) {
+		this.random = new Random(seed);
+	}
+
+	// Avança a partida aleatória um passo (um movimento simples ou um único salto) e obtém a posição alcançada.
+	private Game nextPlayed() {
+		int movable = walk.getMovablePieces();
+		if (movable == 0 || steps >= MAX_STEPS) {
+			walk.restart();
+			this.steps = 0;
+			movable = walk.getMovablePieces();
+		}
+		int start = pick(movable);
+		walk.move(start, pick(walk.getLegalTargets(start)));
+		this.steps ++;
+		return walk;
+	}
+
+	// Sorteia uma posição qualquer, não necessariamente alcançável em uma partida.
+	private Game nextRandom() {
+		int black = 0, white = 0;
+		for (int i = 0; i < 32; i ++) {
+			int r = random.nextInt(3);
+			if (r == 1) {
+				black |= 1 << i;
+			} else if (r == 2) {
+				white |= 1 << i;
+			}
+		}
+		int kings = (black | white) & random.nextInt();
+		boolean isP1Turn = random.nextBoolean();
+		int own = isP1Turn? black : white;
+		int skip = (own != 0 && random.nextBoolean())? pick(own) : -1;
+		Game game = new Game();
+		game.setPosition(black, white, kings, isP1Turn, skip);
+		return game;
+	}
+
+	// Sorteia um dos bits de uma máscara não vazia.
+	private int pick(int mask) {
+		int n = random.nextInt(Integer.bitCount(mask));
+		for (int i = 0; i < n; i ++) {
+			mask &= mask - 1;
+		}
+		return Integer.numberOfTrailingZeros(mask);
+	}
+
+	/*
+	 * Verifica uma posição nas três formas do codificador.
+	 *
+	 * game: o jogo, que não é alterado.
+	 * o nome da forma que falhou, ou null se todas devolveram o mesmo estado.
+	 */
+	public String check(Game game) {
+		String state = game.getGameState();
+		Game parsed = new Game(state);
+		if (game.getSkipIndex() >= 0) {
+			this.pending ++;
+		}
+
+		// ByteBuffer, em uma posição e ordem de bytes sorteadas
+		int offset = random.nextInt(8);
+		ByteBuffer buffer = ByteBuffer.allocate(offset + PositionCodec.BYTES)
+				.order(random.nextBoolean()? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+		buffer.position(offset);
+		PositionCodec.encode(game, buffer);
+		if (buffer.hasRemaining()) {
+			return "bytebuffer";
+		}
+		buffer.position(offset);
+		Game decoded = new Game();
+		PositionCodec.decode(buffer, decoded);
+		if (buffer.hasRemaining() || !state.equals(decoded.getGameState())) {
+			return "bytebuffer";
+		}
+
+		// Vetor de longs, em uma posição sorteada
+		long[] longs = new long[offset + PositionCodec.LONGS];
+		PositionCodec.encode(game, longs, offset);
+		decoded = new Game();
+		PositionCodec.decode(longs, offset, decoded);
+		if (!state.equals(decoded.getGameState())
+				|| !PositionCodec.equals(decoded, longs, offset)
+				|| !PositionCodec.equals(parsed, longs, offset)) {
+			return "long[]";
+		}
+
+		// Texto
+		String text = PositionCodec.toText(game);
+		decoded = new Game();
+		PositionCodec.fromText(text, decoded);
+		if (text.length() != PositionCodec.TEXT_LENGTH
+				|| !state.equals(decoded.getGameState())
+				|| !text.equals(PositionCodec.toText(parsed))) {
+			return "text";
+		}
+
+		// O código de Zobrist também deve voltar igual
+		return (decoded.getHash() == game.getHash())? null : "hash";
+	}
+
+	public static void main(String[] args) {
+
+		int n = (args.length > 0)? Integer.parseInt(args[0]) : DEFAULT_POSITIONS;
+		long seed = (args.length > 1)? Long.parseLong(args[1]) : System.nanoTime();
+		CodecCheck checker = new CodecCheck(seed);
+		int failures = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < n; i ++) {
+			Game game = (i % 2 == 0)? checker.nextPlayed() : checker.nextRandom();
+			String failed = checker.check(game);
+			if (failed != null) {
+				failures ++;
+				System.out.printf("%s FAIL (%s)%n", game.getGameState(), failed);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("seed=%d positions=%d pending=%d failures=%d time=%.3fs%n",
+				seed, n, checker.pending, failures, seconds);
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+}
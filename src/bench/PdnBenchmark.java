@@ -0,0 +1,261 @@
+// Descrição: Este programa mede a velocidade de escrita e leitura de partidas em PDN e verifica que as partidas lidas são iguais às escritas.
+
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import logic.MoveGenerator;
+import model.Game;
+import model.GameRecord;
+import model.MoveList;
+import model.PdnReader;
+import model.PdnWriter;
+
+/* O programa gera partidas com movimentos aleatórios (algumas começando de uma posição com a etiqueta FEN), escreve todas em um arquivo com
+ * PdnWriter e lê o arquivo de volta com PdnReader, primeiro apenas medindo o tempo e depois comparando cada partida lida com a escrita. As
+ * partidas são geradas de novo, com a mesma semente, a cada passada, para que a memória usada não dependa do número de partidas. No fim, o
+ * programa verifica que um salto escrito apenas com o início e o fim é recusado quando duas cadeias gêmeas o têm (veja Perft.TWINS), e que
+ * cada uma delas é lida corretamente quando escrita com todas as paradas.
+ *
+ * Uso: java bench.PdnBenchmark [partidas] [arquivo]
+ * O programa termina com o código 1 se alguma partida lida for diferente da escrita ou se a verificação dos saltos gêmeos falhar.
+ */
+public class PdnBenchmark {
+
+	// O número máximo de turnos de uma partida gerada.
+	private static final int MAX_PLIES = 150;
+
+	// O número de vezes que o arquivo é lido para medir a velocidade.
+	private static final int READ_PASSES = 3;
+
+	// A semente das partidas.
+	private static final long SEED = 1;
+
+	// O gerador das partidas.
+	private final Random random = new Random(SEED);
+
+	// O jogo usado para gerar as partidas.
+	private final Game game = new Game();
+
+	// Os movimentos legais da posição atual.
+	private final MoveList moves = new MoveList();
+
+	// O número de movimentos das partidas geradas.
+	private long moveCount;
+
+	/*
+	 * Gera a próxima partida aleatória.
+	 *
+	 * record: o registro que recebe a partida.
+	 * n: o número da partida.
+	 */
+	private void generate(GameRecord record, int n) {
+		record.clear();
+		record.setTag("Event", "PdnBenchmark");
+		record.setTag("Round", Integer.toString(n + 1));
+		record.setTag("GameType", "21");
+		game.restart();
+
+		// Uma em cada dez partidas começa depois de alguns movimentos, com a etiqueta FEN
+		if (n % 10 == 9) {
+			playRandom(null, 1 + random.nextInt(20));
+			if (game.isGameOver()) {
+				game.restart();
+			}
+			record.setStart(game);
+		}
+
+		// Jogue a partida
+		playRandom(record, MAX_PLIES);
+		if (game.isGameOver()) {
+			record.setResult(game.isP1Turn()? GameRecord.WHITE_WIN : GameRecord.BLACK_WIN);
+		} else {
+			record.setResult(GameRecord.DRAW);
+		}
+		record.setTag("Result", record.getResult());
+	}
+
+	// Faz até plies movimentos aleatórios no jogo, guardando-os no registro (se houver).
+	private void playRandom(GameRecord record, int plies) {
+		for (int ply = 0; ply < plies; ply ++) {
+			MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+					game.getSkipIndex(), moves);
+			if (moves.isEmpty()) {
+				return;
+			}
+			int i = random.nextInt(moves.size());
+			if (record != null) {
+				record.addMove(moves, i);
+				this.moveCount ++;
+			}
+			game.makeMove(moves.get(i), moves.getCaptures(i));
+		}
+	}
+
+	// Determina se duas partidas têm as mesmas etiquetas, a mesma posição inicial, os mesmos movimentos e o mesmo resultado.
+	private static boolean equals(GameRecord a, GameRecord b) {
+		if (!a.getTags().equals(b.getTags()) || !a.getResult().equals(b.getResult())
+				|| a.getMoveCount() != b.getMoveCount() || a.isStandardStart() != b.isStandardStart()
+				|| !a.getStartGame().getGameState().equals(b.getStartGame().getGameState())) {
+			return false;
+		}
+		for (int i = 0; i < a.getMoveCount(); i ++) {
+			if (a.getMove(i) != b.getMove(i) || a.getCaptures(i) != b.getCaptures(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Lê uma partida de um texto PDN.
+	private static void read(String pdn, GameRecord record) throws IOException {
+		try (PdnReader reader = new PdnReader(Channels.newChannel(
+				new ByteArrayInputStream(pdn.getBytes(StandardCharsets.ISO_8859_1))))) {
+			reader.next(record);
+		}
+	}
+
+	/*
+	 * Verifica a leitura dos saltos gêmeos da posição Perft.TWINS: o salto abreviado deve ser recusado como ambíguo, e cada cadeia escrita com
+	 * todas as paradas deve ser lida com as suas próprias capturas.
+	 *
+	 * verdadeiro se a verificação passou.
+	 */
+	private static boolean checkTwins() {
+		Game twins = new Game(Perft.TWINS);
+		String fen = "[FEN \"" + PdnWriter.toFen(twins) + "\"]\n1. ";
+		MoveList legal = twins.getLegalMoves();
+		GameRecord record = new GameRecord();
+		int checked = 0;
+		for (int i = 0; i < legal.size(); i ++) {
+			int move = legal.get(i);
+			int start = MoveList.getStartIndex(move), end = MoveList.getEndIndex(move);
+			if (countChains(legal, start, end) < 2) {
+				continue;
+			}
+
+			// O salto abreviado
+			String shorthand = (start + 1) + "x" + (end + 1);
+			try {
+				read(fen + shorthand + " *\n", record);
+				return false;
+			} catch (IOException e) {
+				if (!e.getMessage().contains("ambiguous")) {
+					return false;
+				}
+			}
+
+			// O salto com todas as paradas
+			StringBuilder full = new StringBuilder().append(start + 1);
+			for (int hop = 0; hop < MoveList.getLength(move); hop ++) {
+				full.append('x').append(MoveList.getPathIndex(legal.getPath(i), hop) + 1);
+			}
+			try {
+				read(fen + full + " *\n", record);
+			} catch (IOException e) {
+				return false;
+			}
+			if (record.getMoveCount() != 1 || record.getMove(0) != move
+					|| record.getCaptures(0) != legal.getCaptures(i)) {
+				return false;
+			}
+			checked ++;
+		}
+		return checked >= 2;
+	}
+
+	// Conta as cadeias de uma lista com o início e o fim especificados.
+	private static int countChains(MoveList list, int start, int end) {
+		int n = 0;
+		for (int i = 0; i < list.size(); i ++) {
+			if (MoveList.getStartIndex(list.get(i)) == start
+					&& MoveList.getEndIndex(list.get(i)) == end) {
+				n ++;
+			}
+		}
+		return n;
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		int games = (args.length > 0)? Integer.parseInt(args[0]) : 100000;
+		Path file = (args.length > 1)? Paths.get(args[1])
+				: Files.createTempFile("games", ".pdn");
+		GameRecord record = new GameRecord();
+
+		// Gere as partidas sem escrevê-las, para descontar o tempo da geração
+		PdnBenchmark generator = new PdnBenchmark();
+		long start = System.nanoTime();
+		for (int i = 0; i < games; i ++) {
+			generator.generate(record, i);
+		}
+		long generation = System.nanoTime() - start;
+
+		// Escreva as partidas
+		generator = new PdnBenchmark();
+		start = System.nanoTime();
+		try (PdnWriter writer = new PdnWriter(FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING))) {
+			for (int i = 0; i < games; i ++) {
+				generator.generate(record, i);
+				writer.write(record);
+			}
+		}
+		double write = Math.max(1, System.nanoTime() - start - generation) / 1e9;
+		long bytes = Files.size(file);
+
+		// Leia as partidas, guardando a passada mais rápida (a primeira inclui a compilação do JIT)
+		int read = 0;
+		double seconds = Double.MAX_VALUE;
+		for (int pass = 0; pass < READ_PASSES; pass ++) {
+			read = 0;
+			start = System.nanoTime();
+			try (PdnReader reader = new PdnReader(FileChannel.open(file,
+					StandardOpenOption.READ))) {
+				while (reader.next(record)) {
+					read ++;
+				}
+			}
+			seconds = Math.min(seconds, Math.max(1, System.nanoTime() - start) / 1e9);
+		}
+
+		// Leia de novo, comparando com as partidas escritas
+		generator = new PdnBenchmark();
+		GameRecord expected = new GameRecord();
+		int errors = 0;
+		try (PdnReader reader = new PdnReader(FileChannel.open(file,
+				StandardOpenOption.READ))) {
+			for (int i = 0; reader.next(record); i ++) {
+				generator.generate(expected, i);
+				if (!equals(record, expected)) {
+					errors ++;
+				}
+			}
+		}
+
+		System.out.printf("%s: %d games, %.1f moves/game, %.1f MB%n", file, games,
+				(double) generator.moveCount / games, bytes / 1e6);
+		System.out.printf("write: %.0f games/s, %.1f MB/s%n", games / write,
+				bytes / 1e6 / write);
+		System.out.printf("read:  %.0f games/s, %.1f MB/s (%d games, %d different)%n",
+				read / seconds, bytes / 1e6 / seconds, read, errors);
+		if (args.length < 2) {
+			Files.delete(file);
+		}
+		boolean twins = checkTwins();
+		System.out.println("twins: " + (twins? "ok" : "FAIL"));
+		if (read != games || errors > 0 || !twins) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+// Descrição: Este programa conta as posições alcançáveis até uma profundidade fixa (perft) para verificar e medir o gerador de movimentos.
+
+package bench;
+
+import logic.MoveGenerator;
+import logic.Search;
+import model.Game;
+import model.MoveList;
+
+/* O programa conta as folhas da árvore de movimentos legais até a profundidade N, fazendo e desfazendo movimentos em uma única cópia do jogo.
+ * Cada salto múltiplo completo é um único movimento, e cadeias equivalentes (mesmo destino e mesmas capturas) contam uma vez. As contagens
+ * são comparadas com os números de referência da posição inicial (conhecidos para damas inglesas) e de algumas posições com saltos múltiplos
+ * e promoções, cujos números foram obtidos com o gerador de movimentos original (descontando as cadeias equivalentes de uma Dama que dá a
+ * volta em um grupo de peças nos dois sentidos).
+ *
+ * A última posição tem cadeias gêmeas: saltos com o mesmo movimento compactado e capturas diferentes (veja MoveList). Nela o programa também
+ * verifica a busca: o movimento escolhido na raiz, identificado pelas suas capturas, deve ser o filho com a pontuação da raiz.
+ *
+ * Uso: java bench.Perft [profundidade]         verifica todas as posições de referência.
+ *      java bench.Perft <estado> <profundidade>  mostra as contagens de uma posição (estado no formato de Game.getGameState).
+ * O programa termina com o código 1 se alguma contagem for diferente da referência.
+ */
+public class Perft {
+
+	// As posições de referência.
+	private static final String[] POSITIONS = {
+		"666666666666000000004444444444441-1",
+		"006600400700044000000440000050001-1",
+		"500060000060000000400600044000041-1",
+		"000006600670000005500000600400400-1",
+		"006606404440000004400000444444001-1"
+	};
+
+	// As contagens de referência de cada posição, da profundidade 1 em diante.
+	private static final long[][] EXPECTED = {
+		{7, 49, 302, 1469, 7361, 36768, 179740, 845931, 3963680},
+		{1, 2, 12, 41, 137, 506, 2501},
+		{1, 6, 16, 54, 201, 806, 3195},
+		{11, 60, 368, 2241, 13478, 85454, 507228},
+		{3, 37, 83, 703, 1594, 10690}
+	};
+
+	// A posição com cadeias gêmeas usada para verificar a busca (e a leitura de saltos abreviados em PdnBenchmark).
+	static final String TWINS = POSITIONS[POSITIONS.length - 1];
+
+	// A maior profundidade da verificação da busca.
+	private static final int TWIN_DEPTH = 6;
+
+	// As listas de movimentos reutilizadas em cada nível.
+	private final MoveList[] moves = new MoveList[128];
+
+	public Perft() {
+		for (int i = 0; i < moves.length; i ++) {
+			this.moves[i] = new MoveList();
+		}
+	}
+
+	/*
+	 * Conta as folhas da árvore de movimentos legais.
+	 *
+	 * game: o jogo, que é restaurado antes do retorno.
+	 * depth: o número de turnos a serem jogados.
+	 * o número de posições alcançadas depois de exatamente depth turnos.
+	 */
+	public long count(Game game, int depth) {
+		return count(game, depth, 0);
+	}
+
+	private long count(Game game, int depth, int ply) {
+		if (depth == 0) {
+			return 1;
+		}
+
+		MoveList list = moves[ply];
+		MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+				game.getSkipIndex(), list);
+		if (depth == 1) {
+			return list.size();
+		}
+		long n = 0;
+		for (int i = 0; i < list.size(); i ++) {
+			game.makeMove(list.get(i), list.getCaptures(i));
+			n += count(game, depth - 1, ply + 1);
+			game.unmakeMove();
+		}
+
+		return n;
+	}
+
+	/*
+	 * Verifica que a busca faz a cadeia de saltos que ela mesma avaliou, mesmo quando há cadeias gêmeas.
+	 *
+	 * game: o jogo, que não é alterado.
+	 * depth: a profundidade da busca na raiz.
+	 * verdadeiro se o movimento escolhido é legal e a busca do filho correspondente confirma a pontuação da raiz.
+	 */
+	public static boolean checkSearch(Game game, int depth) {
+		Search search = new Search();
+		search.setTablebase(null);
+		int move = search.search(game, depth);
+		int captures = search.getBestCaptures();
+		if (game.getLegalMoves().indexOf(move, captures) < 0) {
+			return false;
+		}
+
+		Game child = game.copy();
+		child.makeMove(move, captures);
+		Search reply = new Search();
+		reply.setTablebase(null);
+		reply.search(child, depth - 1);
+		return -reply.getScore() == search.getScore();
+	}
+
+	public static void main(String[] args) {
+
+		// Uma única posição
+		Perft perft = new Perft();
+		if (args.length > 1) {
+			Game game = new Game(args[0]);
+			int depth = Integer.parseInt(args[1]);
+			for (int d = 1; d <= depth; d ++) {
+				long start = System.nanoTime();
+				long n = perft.count(game, d);
+				System.out.printf("%2d %12d %10.3fs%n", d, n,
+						(System.nanoTime() - start) / 1e9);
+			}
+			return;
+		}
+
+		// Todas as posições de referência
+		int max = (args.length > 0)? Integer.parseInt(args[0]) : 7;
+		boolean ok = true;
+		long total = 0, start = System.nanoTime();
+		for (int p = 0; p < POSITIONS.length; p ++) {
+			Game game = new Game(POSITIONS[p]);
+			for (int d = 1; d <= max && d <= EXPECTED[p].length; d ++) {
+				long n = perft.count(game, d);
+				boolean match = (n == EXPECTED[p][d - 1]);
+				ok &= match;
+				total += n;
+				System.out.printf("%s %2d %12d %s%n", POSITIONS[p], d, n,
+						match? "ok" : "FAIL (expected " + EXPECTED[p][d - 1] + ")");
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("leaves=%d time=%.3fs leaves/s=%.0f%n", total, seconds,
+				total / seconds);
+
+		// A busca na posição com cadeias gêmeas
+		Game twins = new Game(TWINS);
+		for (int d = 2; d <= TWIN_DEPTH; d ++) {
+			boolean match = checkSearch(twins, d);
+			ok &= match;
+			System.out.printf("%s %2d search %s%n", TWINS, d, match? "ok" : "FAIL");
+		}
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+// Descrição: Este programa mede o tempo que a busca leva para chegar a uma profundidade fixa com diferentes números de threads.
+
+package bench;
+
+import logic.Search;
+import logic.TranspositionTable;
+import model.Game;
+
+/* O programa busca um conjunto fixo de posições até a mesma profundidade com cada número de threads e mostra o tempo total, a aceleração em
+ * relação a uma thread e o número de posições por segundo. Cada busca começa com uma tabela de transposição vazia, para que uma medida não
+ * aproveite o trabalho da anterior.
+ *
+ * Uso: java bench.SmpBenchmark [profundidade] [threads separadas por vírgula] [tamanho da tabela em MB]
+ * Exemplo: java bench.SmpBenchmark 14 1,2,4,8,16,32 256
+ */
+public class SmpBenchmark {
+
+	// A profundidade padrão das buscas.
+	private static final int DEFAULT_DEPTH = 12;
+
+	// Os números de threads usados por padrão.
+	private static final String DEFAULT_THREADS = "1,2,4,8";
+
+	// O tamanho padrão da tabela de transposição em megabytes.
+	private static final int DEFAULT_HASH_MB = 64;
+
+	// As posições usadas na medida: a inicial e algumas posições de meio e fim de jogo.
+	private static final String[] POSITIONS = {
+		"666666666666000000004444444444441-1",
+		"006600400700044000000440000050001-1",
+		"500060000060000000400600044000041-1",
+		"000006600670000005500000600400400-1",
+		"666066606660600004404440444044440-1"
+	};
+
+	public static void main(String[] args) {
+
+		int depth = (args.length > 0)? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+		String[] counts = ((args.length > 1)? args[1] : DEFAULT_THREADS).split(",");
+		int hash = (args.length > 2)? Integer.parseInt(args[2]) : DEFAULT_HASH_MB;
+		System.out.println("processors=" + Runtime.getRuntime().availableProcessors()
+				+ " depth=" + depth + " hash=" + hash + "MB positions=" + POSITIONS.length);
+
+		// Aqueça a JVM antes de medir
+		run(1, depth, hash);
+
+		double base = 0;
+		for (String count : counts) {
+			int threads = Integer.parseInt(count.trim());
+			long start = System.nanoTime();
+			long nodes = run(threads, depth, hash);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			if (base == 0) {
+				base = seconds;
+			}
+			System.out.printf("threads=%-3d time=%8.3fs speedup=%5.2f nodes=%-12d nps=%.0f%n",
+					threads, seconds, base / seconds, nodes, nodes / seconds);
+		}
+	}
+
+	/*
+	 * Busca todas as posições até a profundidade especificada.
+	 *
+	 * threads: o número de threads da busca.
+	 * depth: a profundidade das buscas.
+	 * hash: o tamanho da tabela de transposição em megabytes.
+	 * o número total de posições visitadas.
+	 */
+	private static long run(int threads, int depth, int hash) {
+		long nodes = 0;
+		for (String position : POSITIONS) {
+			Search search = new Search(new TranspositionTable(hash));
+			search.setThreads(threads);
+			search.search(new Game(position), depth);
+			nodes += search.getNodes();
+			search.setThreads(1);
+		}
+		return nodes;
+	}
+}
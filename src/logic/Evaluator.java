@@ -0,0 +1,129 @@
+// Descrição: Esta classe avalia estaticamente (sem busca) uma posição do jogo de damas.
+
+package logic;
+
+import model.Board;
+import model.Game;
+
+/* A classe atribui uma pontuação a uma posição, do ponto de vista do jogador da vez. Ela soma o material e as tabelas de posição de cada peça
+ * (avanço, guarda da última linha e controle do centro) com o peso de 'segurança' das peças, que é a mesma heurística usada originalmente pelo
+ * jogador de computador. O material e as tabelas dependem apenas de cada peça isoladamente e, por isso, são mantidos pelo próprio jogo a cada
+ * movimento (veja Game.getScore); apenas a segurança é calculada em cada avaliação.
+ */
+public class Evaluator {
+
+	// O valor de uma peça comum.
+	public static final int CHECKER_VALUE = 100;
+
+	// O valor de uma Dama.
+	public static final int KING_VALUE = 160;
+
+	// O peso de um verificador sendo seguro.
+	private static final int SAFE = 3;
+
+	// O peso de um verificador não é seguro.
+	private static final int UNSAFE = -5;
+
+	// O fator usado para multiplicar alguns pesos quando a peça observada é uma Dama.
+	private static final int KING_FACTOR = 2;
+
+	// O bônus de uma peça comum preta em cada ladrilho (as brancas usam o tabuleiro girado). A última linha das pretas (y = 0) guarda contra
+	// promoções do adversário, o centro é preferido e as peças ganham valor ao se aproximarem da promoção.
+	private static final int[] CHECKER_TABLE = {
+		6,  6,  6,  6,
+		0,  0,  0,  0,
+		1,  2,  2,  1,
+		2,  4,  4,  2,
+		4,  6,  6,  4,
+		6,  8,  8,  6,
+		10, 12, 12, 10,
+		0,  0,  0,  0
+	};
+
+	// O bônus de uma Dama em cada ladrilho: as Damas são mais fortes no centro e mais fracas nas bordas.
+	private static final int[] KING_TABLE = {
+		-4, -4, -4, -4,
+		-4,  0,  0,  0,
+		 0,  4,  4, -4,
+		-4,  4,  4,  0,
+		 0,  4,  4, -4,
+		-4,  4,  4,  0,
+		 0,  0,  0, -4,
+		-4, -4, -4, -4
+	};
+
+	// O valor (material e posição) de cada peça (ID - 4) em cada ladrilho preto, do ponto de vista das pretas.
+	private static final int[][] PIECE_VALUES = new int[4][32];
+
+	static {
+		for (int i = 0; i < 32; i ++) {
+			PIECE_VALUES[Board.BLACK_CHECKER - 4][i] = CHECKER_VALUE + CHECKER_TABLE[i];
+			PIECE_VALUES[Board.BLACK_KING - 4][i] = KING_VALUE + KING_TABLE[i];
+			PIECE_VALUES[Board.WHITE_CHECKER - 4][i] = -CHECKER_VALUE - CHECKER_TABLE[31 - i];
+			PIECE_VALUES[Board.WHITE_KING - 4][i] = -KING_VALUE - KING_TABLE[31 - i];
+		}
+	}
+
+	/*
+	 * Avalia a posição atual do jogo.
+	 *
+	 * game: o jogo a ser avaliado.
+	 * a pontuação da posição do ponto de vista do jogador da vez (positiva se ele estiver melhor).
+	 */
+	public static int evaluate(Game game) {
+		Board b = game.getBoardView();
+		int score = game.getScore()
+				+ getSafetyWeight(b, true) - getSafetyWeight(b, false);
+		return game.isP1Turn()? score : -score;
+	}
+
+	/*
+	 * Obtém o valor de uma peça em um ladrilho, somando o material com a tabela de posição.
+	 *
+	 * id: o ID da peça (um ladrilho vazio ou um ID inválido vale 0).
+	 * index: o índice do ladrilho preto.
+	 * o valor da peça do ponto de vista das pretas (negativo para as peças brancas).
+	 */
+	public static int getPieceValue(int id, int index) {
+		if (id < Board.WHITE_CHECKER || id > Board.BLACK_KING ||
+				!Board.isValidIndex(index)) {
+			return 0;
+		}
+		return PIECE_VALUES[id - Board.WHITE_CHECKER][index];
+	}
+
+	/*
+	 * Calcula do zero a soma dos valores de todas as peças, que o jogo mantém incrementalmente.
+	 *
+	 * b: o tabuleiro para verificar.
+	 * a soma de getPieceValue para cada peça do tabuleiro.
+	 */
+	public static int getPositionalScore(Board b) {
+		int score = 0, pieces = b.getBlack() | b.getWhite();
+		while (pieces != 0) {
+			int index = Integer.numberOfTrailingZeros(pieces);
+			score += getPieceValue(b.get(index), index);
+			pieces &= pieces - 1;
+		}
+		return score;
+	}
+
+	/*
+	 * Calcula o estado de 'segurança' do jogo para o jogador especificado. O jogador tem damas 'seguras' e 'inseguras', que respectivamente, não
+	 * podem e podem ser puladas pelo oponente no próximo turno.
+	 *
+	 * b: o estado da placa para verificar.
+	 * isBlack: a bandeira indicando se as damas pretas devem ser observadas.
+	 * o peso correspondente à segurança das peças do jogador.
+	 */
+	public static int getSafetyWeight(Board b, boolean isBlack) {
+
+		// Separe as peças ameaçadas das seguras com o mapa de ameaças
+		int pieces = b.getPieces(isBlack), kings = b.getKings();
+		int threatened = MoveGenerator.getThreatened(b, isBlack);
+
+		return Integer.bitCount(pieces & ~threatened) * SAFE
+				+ Integer.bitCount(threatened & ~kings) * UNSAFE
+				+ Integer.bitCount(threatened & kings) * UNSAFE * KING_FACTOR;
+	}
+}
@@ -7,9 +7,28 @@ import java.util.ArrayList;
 import java.util.List;
 
 import model.Board;
+import model.MoveList;
 
 // A classe fornece um método para determinar se uma determinada peça pode fazer qualquer movimento ou pular.
 public class MoveGenerator {
+	
+	// Os ladrilhos pretos das linhas pares (y = 0, 2, 4, 6), onde x é ímpar.
+	private static final int EVEN_ROWS = 0x0F0F0F0F;
+	
+	// Os ladrilhos pretos das linhas ímpares (y = 1, 3, 5, 7), onde x é par.
+	private static final int ODD_ROWS = 0xF0F0F0F0;
+	
+	// O primeiro ladrilho preto de cada linha (índice % 4 == 0).
+	private static final int LEFT_COLUMN = 0x11111111;
+	
+	// O último ladrilho preto de cada linha (índice % 4 == 3).
+	private static final int RIGHT_COLUMN = 0x88888888;
+	
+	// A linha onde as peças pretas se tornam Damas (y = 7).
+	public static final int BLACK_KING_ROW = 0xF0000000;
+	
+	// A linha onde as peças brancas se tornam Damas (y = 0).
+	public static final int WHITE_KING_ROW = 0x0000000F;
 
 	/*
 	 * Obtém uma lista de pontos finais de movimento para um determinado índice inicial.
@@ -37,18 +56,8 @@ public class MoveGenerator {
 			return endPoints;
 		}
 		
-		// Determinar possíveis pontos
-		int id = board.get(startIndex);
-		Point p = Board.toPoint(startIndex);
-		addPoints(endPoints, p, id, 1);
-		
-		// Remover pontos inválidos
-		for (int i = 0; i < endPoints.size(); i ++) {
-			Point end = endPoints.get(i);
-			if (board.get(end.x, end.y) != Board.EMPTY) {
-				endPoints.remove(i --);
-			}
-		}
+		// Converter os destinos possíveis em pontos
+		addPoints(endPoints, getMoveTargets(board, startIndex));
 		
 		return endPoints;
 	}
@@ -79,24 +88,180 @@ public class MoveGenerator {
 			return endPoints;
 		}
 		
-		// Determinar possíveis pontos
-		int id = board.get(startIndex);
-		Point p = Board.toPoint(startIndex);
-		addPoints(endPoints, p, id, 2);
-		
-		// Remover pontos inválidos
-		for (int i = 0; i < endPoints.size(); i ++) {
-			
-			// Verifique se o salto é válido
-			Point end = endPoints.get(i);
-			if (!isValidSkip(board, startIndex, Board.toIndex(end))) {
-				endPoints.remove(i --);
-			}
-		}
+		// Converter os destinos possíveis em pontos
+		addPoints(endPoints, getSkipTargets(board, startIndex));
 
 		return endPoints;
 	}
 	
+	/*
+	 * Obtém a máscara de bits dos destinos de movimentos simples (sem salto) da peça no índice especificado.
+	 * 
+	 * board: o tabuleiro para procurar movimentos disponíveis.
+	 * startIndex: o índice da peça.
+	 * a máscara com um bit definido para cada índice final válido, ou 0 se não houver nenhum.
+	 */
+	public static int getMoveTargets(Board board, int startIndex) {
+		
+		// Casos Triviais
+		if (board == null || !Board.isValidIndex(startIndex)) {
+			return 0;
+		}
+		
+		// Determinar as direções permitidas para a peça
+		int black = board.getBlack(), white = board.getWhite();
+		int kings = board.getKings(), start = 1 << startIndex;
+		int empty = ~(black | white);
+		int targets = 0;
+		if ((start & (black | (white & kings))) != 0) {
+			targets |= downLeft(start) | downRight(start);
+		}
+		if ((start & (white | (black & kings))) != 0) {
+			targets |= upLeft(start) | upRight(start);
+		}
+		
+		return targets & empty;
+	}
+	
+	/*
+	 * Obtém a máscara de bits dos destinos de saltos da peça no índice especificado.
+	 * 
+	 * board: o tabuleiro para procurar saltos disponíveis.
+	 * startIndex: o índice da peça.
+	 * a máscara com um bit definido para cada índice final válido, ou 0 se não houver nenhum.
+	 */
+	public static int getSkipTargets(Board board, int startIndex) {
+		
+		// Casos Triviais
+		if (board == null || !Board.isValidIndex(startIndex)) {
+			return 0;
+		}
+		
+		// Determinar o adversário da peça
+		int black = board.getBlack(), white = board.getWhite();
+		int kings = board.getKings(), start = 1 << startIndex;
+		boolean isBlack = (start & black) != 0;
+		if (!isBlack && (start & white) == 0) {
+			return 0;
+		}
+		int opp = isBlack? white : black;
+		int empty = ~(black | white);
+		
+		// Saltar duas vezes na mesma direção, passando por cima de um adversário
+		int targets = 0;
+		if (isBlack || (start & kings) != 0) {
+			targets |= downLeft(downLeft(start) & opp);
+			targets |= downRight(downRight(start) & opp);
+		}
+		if (!isBlack || (start & kings) != 0) {
+			targets |= upLeft(upLeft(start) & opp);
+			targets |= upRight(upRight(start) & opp);
+		}
+		
+		return targets & empty;
+	}
+	
+	/*
+	 * Obtém a máscara de bits de todas as peças de um jogador que podem fazer um movimento simples (sem salto).
+	 * 
+	 * board: o tabuleiro para verificar.
+	 * isBlack: a bandeira indicando se as peças pretas devem ser observadas.
+	 * a máscara com um bit definido para cada peça que pode se mover.
+	 */
+	public static int getMovers(Board board, boolean isBlack) {
+		
+		if (board == null) {
+			return 0;
+		}
+		
+		// Uma peça pode se mover se o ladrilho vizinho na direção permitida estiver vazio
+		int black = board.getBlack(), white = board.getWhite();
+		int kings = board.getKings(), empty = ~(black | white);
+		int own = isBlack? black : white;
+		int down = isBlack? own : own & kings;
+		int up = isBlack? own & kings : own;
+		
+		return (down & (upRight(empty) | upLeft(empty)))
+				| (up & (downRight(empty) | downLeft(empty)));
+	}
+	
+	/*
+	 * Obtém a máscara de bits de todas as peças de um jogador que podem fazer um salto.
+	 * 
+	 * board: o tabuleiro para verificar.
+	 * isBlack: a bandeira indicando se as peças pretas devem ser observadas.
+	 * a máscara com um bit definido para cada peça que pode pular.
+	 */
+	public static int getJumpers(Board board, boolean isBlack) {
+		
+		if (board == null) {
+			return 0;
+		}
+		
+		// Partindo dos ladrilhos vazios, volte sobre um adversário até a peça
+		int black = board.getBlack(), white = board.getWhite();
+		int kings = board.getKings(), empty = ~(black | white);
+		int own = isBlack? black : white, opp = isBlack? white : black;
+		int down = isBlack? own : own & kings;
+		int up = isBlack? own & kings : own;
+		
+		return (down & (upRight(upRight(empty) & opp)
+				| upLeft(upLeft(empty) & opp)))
+				| (up & (downRight(downRight(empty) & opp)
+				| downLeft(downLeft(empty) & opp)));
+	}
+	
+	/*
+	 * Determina se o jogador tem algum movimento legal, sem gerar os movimentos: o resultado é o mesmo de generate(...) > 0, calculado com
+	 * algumas operações sobre as máscaras do tabuleiro.
+	 * 
+	 * board: o tabuleiro para verificar.
+	 * isBlack: a bandeira indicando se é a vez das peças pretas.
+	 * skipIndex: o índice do último salto neste turno, ou -1 se não houver (nesse caso, apenas essa peça pode continuar saltando).
+	 * true se o jogador puder se mover.
+	 */
+	public static boolean hasLegalMove(Board board, boolean isBlack,
+			int skipIndex) {
+		
+		if (board == null) {
+			return false;
+		}
+		
+		// O próximo movimento precisa ser um salto da mesma peça
+		if (Board.isValidIndex(skipIndex)) {
+			return (board.getPieces(isBlack) & (1 << skipIndex)) != 0
+					&& getSkipTargets(board, skipIndex) != 0;
+		}
+		return (getMovers(board, isBlack) | getJumpers(board, isBlack)) != 0;
+	}
+	
+	/*
+	 * Obtém a máscara de bits de todas as peças de um jogador que o adversário poderia pular imediatamente, sem considerar de quem é a vez.
+	 * Uma peça está ameaçada se um adversário que pode se mover na direção dela estiver ao seu lado e o ladrilho do outro lado estiver vazio.
+	 * 
+	 * board: o tabuleiro para verificar.
+	 * isBlack: a bandeira indicando se as peças pretas devem ser observadas.
+	 * a máscara com um bit definido para cada peça ameaçada.
+	 */
+	public static int getThreatened(Board board, boolean isBlack) {
+		
+		if (board == null) {
+			return 0;
+		}
+		
+		// Avance os atacantes sobre as peças e volte dos ladrilhos vazios do outro lado
+		int black = board.getBlack(), white = board.getWhite();
+		int kings = board.getKings(), empty = ~(black | white);
+		int own = isBlack? black : white, opp = isBlack? white : black;
+		int down = isBlack? opp & kings : opp;
+		int up = isBlack? opp : opp & kings;
+		
+		return own & ((downLeft(down) & upRight(empty))
+				| (downRight(down) & upLeft(empty))
+				| (upLeft(up) & downRight(empty))
+				| (upRight(up) & downLeft(empty)));
+	}
+	
 	/*
 	 * Verifica se um salto é válido.
 	 * 
@@ -154,4 +319,194 @@ public class MoveGenerator {
 			points.add(new Point(p.x - delta, p.y - delta));
 		}
 	}
+	
+	/*
+	 * Gera todos os movimentos legais do jogador, de acordo com as regras em MoveLogic, preenchendo a lista especificada. Se houver algum salto
+	 * disponível, apenas os saltos são gerados, e cada salto múltiplo é gerado inteiro, como um único movimento (veja MoveList), até a peça
+	 * não poder mais saltar ou ser promovida. Cadeias equivalentes (mesma peça, mesmo destino e mesmas peças capturadas) são geradas uma única
+	 * vez. A lista é reutilizada e nenhum objeto é criado por movimento.
+	 * 
+	 * board: o tabuleiro para procurar movimentos.
+	 * isBlack: a bandeira indicando se é a vez das peças pretas.
+	 * skipIndex: o índice do último salto neste turno, ou -1 se não houver (nesse caso, apenas o restante da cadeia dessa peça é gerado).
+	 * moves: a lista a ser preenchida (é limpa antes).
+	 * o número de movimentos gerados.
+	 */
+	public static int generate(Board board, boolean isBlack, int skipIndex,
+			MoveList moves) {
+		
+		moves.clear();
+		if (board == null) {
+			return 0;
+		}
+		
+		// O próximo movimento precisa ser um salto da mesma peça
+		int own = board.getPieces(isBlack);
+		if (Board.isValidIndex(skipIndex)) {
+			if ((own & (1 << skipIndex)) != 0) {
+				addChains(board, skipIndex, moves);
+			}
+			return moves.size();
+		}
+		
+		// Os saltos são obrigatórios
+		int jumpers = getJumpers(board, isBlack);
+		while (jumpers != 0) {
+			addChains(board, Integer.numberOfTrailingZeros(jumpers), moves);
+			jumpers &= jumpers - 1;
+		}
+		if (!moves.isEmpty()) {
+			return moves.size();
+		}
+		
+		// Sem saltos, adicione os movimentos regulares
+		int movers = getMovers(board, isBlack);
+		while (movers != 0) {
+			int start = Integer.numberOfTrailingZeros(movers);
+			boolean isKing = (board.getKings() & (1 << start)) != 0;
+			int promotionRow = isKing? 0 : (isBlack? BLACK_KING_ROW : WHITE_KING_ROW);
+			int targets = getMoveTargets(board, start);
+			while (targets != 0) {
+				int end = Integer.numberOfTrailingZeros(targets);
+				moves.add(MoveList.encode(start, end, 0,
+						(promotionRow & (1 << end)) != 0, 0));
+				targets &= targets - 1;
+			}
+			movers &= movers - 1;
+		}
+		
+		return moves.size();
+	}
+	
+	/*
+	 * Adiciona todas as cadeias de saltos completas da peça no índice especificado à lista de movimentos.
+	 * 
+	 * board: o tabuleiro para procurar saltos.
+	 * start: o índice da peça.
+	 * moves: a lista de movimentos a ser preenchida.
+	 */
+	private static void addChains(Board board, int start, MoveList moves) {
+		
+		int black = board.getBlack(), white = board.getWhite();
+		int bit = 1 << start;
+		boolean isBlack = (black & bit) != 0;
+		boolean isKing = (board.getKings() & bit) != 0;
+		int promotionRow = isKing? 0 : (isBlack? BLACK_KING_ROW : WHITE_KING_ROW);
+		
+		// A peça sai do ladrilho inicial, que fica livre para o resto da cadeia
+		int empty = ~(black | white) | bit;
+		addChain(moves, start, bit, isBlack? white : black, empty,
+				isBlack || isKing, !isBlack || isKing, promotionRow,
+				0, 0, 0, 0, moves.size());
+	}
+	
+	/*
+	 * Continua uma cadeia de saltos a partir da posição atual da peça, adicionando a cadeia à lista quando ela não puder mais continuar. As
+	 * peças capturadas saem do tabuleiro a cada salto, como em Game.makeMove.
+	 * 
+	 * moves: a lista de movimentos a ser preenchida.
+	 * start: o índice inicial da cadeia.
+	 * bit: a máscara da posição atual da peça.
+	 * opp: as peças do adversário que ainda podem ser capturadas.
+	 * empty: os ladrilhos vazios.
+	 * down: a bandeira indicando se a peça pode saltar para baixo.
+	 * up: a bandeira indicando se a peça pode saltar para cima.
+	 * promotionRow: a linha onde a peça é promovida (0 se já for uma Dama).
+	 * captures: a máscara das peças já capturadas.
+	 * path: o caminho até a posição atual.
+	 * length: o número de saltos já feitos.
+	 * firstCaptured: o índice da primeira peça capturada.
+	 * first: a posição na lista do primeiro movimento desta peça, usada para ignorar cadeias equivalentes.
+	 */
+	private static void addChain(MoveList moves, int start, int bit, int opp,
+			int empty, boolean down, boolean up, int promotionRow, int captures,
+			long path, int length, int firstCaptured, int first) {
+		
+		// A promoção encerra a cadeia
+		boolean extended = false;
+		if (length == 0 || (bit & promotionRow) == 0) {
+			for (int dir = 0; dir < 4; dir ++) {
+				if ((dir < 2)? !down : !up) {
+					continue;
+				}
+				int mid = shift(bit, dir) & opp;
+				int end = shift(mid, dir) & empty;
+				if (end == 0) {
+					continue;
+				}
+				extended = true;
+				int index = Integer.numberOfTrailingZeros(end);
+				addChain(moves, start, end, opp & ~mid, (empty | mid | bit) & ~end,
+						down, up, promotionRow, captures | mid,
+						MoveList.addPathIndex(path, length, index), length + 1,
+						(length == 0)? Integer.numberOfTrailingZeros(mid) : firstCaptured,
+						first);
+			}
+		}
+		if (extended || length == 0) {
+			return;
+		}
+		
+		// Ignore as cadeias equivalentes a uma já adicionada
+		int end = Integer.numberOfTrailingZeros(bit);
+		for (int i = first; i < moves.size(); i ++) {
+			if (moves.getCaptures(i) == captures &&
+					MoveList.getEndIndex(moves.get(i)) == end) {
+				return;
+			}
+		}
+		moves.add(MoveList.encode(start, end, firstCaptured,
+				(bit & promotionRow) != 0, length), captures, path);
+	}
+	
+	// Desloca a máscara uma diagonal na direção especificada (0 e 1 para baixo, 2 e 3 para cima).
+	private static int shift(int mask, int dir) {
+		switch (dir) {
+		case 0:
+			return downLeft(mask);
+		case 1:
+			return downRight(mask);
+		case 2:
+			return upLeft(mask);
+		default:
+			return upRight(mask);
+		}
+	}
+	
+	/**
+	 * Adiciona à lista os pontos correspondentes aos bits definidos em uma máscara.
+	 * 
+	 * points: a lista de pontos a serem adicionados.
+	 * mask: a máscara de índices de ladrilhos pretos.
+	 */
+	private static void addPoints(List<Point> points, int mask) {
+		while (mask != 0) {
+			points.add(Board.toPoint(Integer.numberOfTrailingZeros(mask)));
+			mask &= mask - 1;
+		}
+	}
+	
+	/*
+	 * Desloca cada bit da máscara uma diagonal para baixo e para a esquerda (x - 1, y + 1). Os bits que sairiam do tabuleiro são descartados.
+	 * 
+	 * Nas linhas pares (y = 0, 2, 4, 6) o vizinho está em índice + 4; nas linhas ímpares, em índice + 3, exceto na primeira coluna.
+	 */
+	private static int downLeft(int mask) {
+		return ((mask & EVEN_ROWS) << 4) | ((mask & ODD_ROWS & ~LEFT_COLUMN) << 3);
+	}
+	
+	// Desloca cada bit da máscara uma diagonal para baixo e para a direita (x + 1, y + 1).
+	private static int downRight(int mask) {
+		return ((mask & EVEN_ROWS & ~RIGHT_COLUMN) << 5) | ((mask & ODD_ROWS) << 4);
+	}
+	
+	// Desloca cada bit da máscara uma diagonal para cima e para a esquerda (x - 1, y - 1).
+	private static int upLeft(int mask) {
+		return ((mask & EVEN_ROWS) >>> 4) | ((mask & ODD_ROWS & ~LEFT_COLUMN) >>> 5);
+	}
+	
+	// Desloca cada bit da máscara uma diagonal para cima e para a direita (x + 1, y - 1).
+	private static int upRight(int mask) {
+		return ((mask & EVEN_ROWS & ~RIGHT_COLUMN) >>> 3) | ((mask & ODD_ROWS) >>> 4);
+	}
 }
@@ -3,8 +3,6 @@
 package logic;
 
 import java.awt.Point;
-import java.util.ArrayList;
-import java.util.List;
 
 import model.Board;
 import model.Game;
@@ -13,7 +11,8 @@ import model.Game;
 public class MoveLogic {
 
 	/*
-	 * Determina se o movimento especificado é válido com base nas regras de damas.
+	 * Determina se o movimento especificado é válido com base nas regras de damas. Os movimentos legais da posição são calculados uma única vez
+	 * e guardados no jogo (veja Game.isLegalStep).
 	 * 
 	 * game: o jogo para verificar contra.
 	 * startIndex: o índice inicial do movimento.
@@ -22,8 +21,7 @@ public class MoveLogic {
 	 */
 	public static boolean isValidMove(Game game,
 			int startIndex, int endIndex) {
-		return game == null? false : isValidMove(game.getBoard(),
-				game.isP1Turn(), startIndex, endIndex, game.getSkipIndex());
+		return game == null? false : game.isLegalStep(startIndex, endIndex);
 	}
 	
 	/**
@@ -111,12 +109,12 @@ public class MoveLogic {
 	private static boolean validateDistance(Board board, boolean isP1Turn,
 			int startIndex, int endIndex) {
 		
-		// Verifique se foi um movimento diagonal
+		// Verifique se foi um movimento diagonal de magnitude 1 ou 2
 		Point start = Board.toPoint(startIndex);
 		Point end = Board.toPoint(endIndex);
 		int dx = end.x - start.x;
 		int dy = end.y - start.y;
-		if (Math.abs(dx) != Math.abs(dy) || dx == 0) {
+		if (Math.abs(dx) != Math.abs(dy) || dx == 0 || Math.abs(dx) > 2) {
 			return false;
 		}
 		
@@ -130,25 +128,8 @@ public class MoveLogic {
 		// Verifique se isso não é um salto, não há nenhum disponível
 		Point middle = Board.middle(startIndex, endIndex);
 		int midID = board.get(Board.toIndex(middle));
-		if (midID < 0) {
-			
-			// Obtenha as damas corretas
-			List<Point> checkers;
-			if (isP1Turn) {
-				checkers = board.find(Board.BLACK_CHECKER);
-				checkers.addAll(board.find(Board.BLACK_KING));
-			} else {
-				checkers = board.find(Board.WHITE_CHECKER);
-				checkers.addAll(board.find(Board.WHITE_KING));
-			}
-			
-			// Verifique se algum deles tem um salto disponível
-			for (Point p : checkers) {
-				int index = Board.toIndex(p);
-				if (!MoveGenerator.getSkips(board, index).isEmpty()) {
-					return false;
-				}
-			}
+		if (midID < 0 && MoveGenerator.getJumpers(board, isP1Turn) != 0) {
+			return false;
 		}
 		
 		// Passou em todos os testes
@@ -177,39 +158,8 @@ public class MoveLogic {
 			return true;
 		}
 		
-		// Determine se pode ser ignorado
+		// Procure a peça no mapa de ameaças do seu jogador
 		boolean isBlack = (id == Board.BLACK_CHECKER || id == Board.BLACK_KING);
-		List<Point> check = new ArrayList<>();
-		MoveGenerator.addPoints(check, checker, Board.BLACK_KING, 1);
-		for (Point p : check) {
-			int start = Board.toIndex(p);
-			int tid = board.get(start);
-			
-			// Nada aqui
-			if (tid == Board.EMPTY || tid == Board.INVALID) {
-				continue;
-			}
-			
-			// Verificar ID
-			boolean isWhite = (tid == Board.WHITE_CHECKER ||
-					tid == Board.WHITE_KING);
-			if (isBlack && !isWhite) {
-				continue;
-			}
-			boolean isKing = (tid == Board.BLACK_KING || tid == Board.BLACK_KING);
-			
-			// Determine se a direção de salto é válida
-			int dx = (checker.x - p.x) * 2;
-			int dy = (checker.y - p.y) * 2;
-			if (!isKing && (isWhite ^ (dy < 0))) {
-				continue;
-			}
-			int endIndex = Board.toIndex(new Point(p.x + dx, p.y + dy));
-			if (MoveGenerator.isValidSkip(board, start, endIndex)) {
-				return false;
-			}
-		}
-		
-		return true;
+		return (MoveGenerator.getThreatened(board, isBlack) & (1 << index)) == 0;
 	}
 }
@@ -0,0 +1,252 @@
+// Descrição: Esta classe consulta um livro de aberturas (os movimentos já jogados em cada posição e seus resultados) mapeado na memória.
+
+package logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.Game;
+import model.MoveList;
+
+/* A classe guarda um arquivo gerado por tools.BookBuilder, com um registro de tamanho fixo para cada par (posição, movimento) jogado nas partidas
+ * de auto-jogo. O arquivo é mapeado na memória (MappedByteBuffer) e os registros, ordenados pelo código de Zobrist da posição, são encontrados
+ * por busca binária, sem ler o arquivo inteiro nem criar objetos.
+ *
+ * O arquivo tem um cabeçalho de 16 bytes (o número mágico, o tamanho de um registro e o número de registros) seguido dos registros. Cada
+ * registro tem 28 bytes:
+ *
+ * bytes 0 a 7: o código de Zobrist da posição (Game.getHash).
+ * bytes 8 a 11: o movimento compactado (veja MoveList).
+ * bytes 12 a 15: a máscara das peças capturadas pelo movimento, que distingue as cadeias de saltos gêmeas (mesmo movimento compactado).
+ * bytes 16 a 19: o peso, isto é, o número de partidas em que o movimento foi jogado na posição.
+ * bytes 20 a 23: o número dessas partidas vencidas pelo jogador que fez o movimento.
+ * bytes 24 a 27: o número dessas partidas empatadas.
+ *
+ * Os registros de uma mesma posição ficam juntos, do maior peso para o menor.
+ */
+public class OpeningBook {
+
+	// O nome da propriedade do sistema com o arquivo do livro.
+	public static final String PATH_PROPERTY = "checkers.book";
+
+	// O arquivo padrão do livro.
+	public static final String DEFAULT_PATH = "book.cbk";
+
+	// O tamanho de um registro, em bytes.
+	public static final int RECORD_SIZE = 28;
+
+	// O peso mínimo padrão de um movimento para que ele seja escolhido.
+	public static final int DEFAULT_MIN_WEIGHT = 2;
+
+	// O número que identifica um arquivo de livro ("CBK2"; os arquivos "CBK1" não tinham as capturas e não são mais aceitos).
+	private static final int MAGIC = 0x43424B32;
+
+	// O tamanho do cabeçalho de um arquivo, em bytes.
+	private static final int HEADER_SIZE = 16;
+
+	// As posições de cada campo em um registro.
+	private static final int MOVE_OFFSET = 8, CAPTURES_OFFSET = 12,
+			WEIGHT_OFFSET = 16, WINS_OFFSET = 20, DRAWS_OFFSET = 24;
+
+	// O livro compartilhado, carregado do arquivo padrão.
+	private static OpeningBook defaultBook;
+
+	// Os registros mapeados, ou null se o livro estiver vazio.
+	private final MappedByteBuffer records;
+
+	// O número de registros.
+	private final int size;
+
+	// O peso mínimo de um movimento para que ele seja escolhido.
+	private volatile int minWeight = DEFAULT_MIN_WEIGHT;
+
+	// Cria um livro vazio.
+	public OpeningBook() {
+		this.records = null;
+		this.size = 0;
+	}
+
+	/*
+	 * Mapeia um arquivo de livro na memória.
+	 *
+	 * file: o arquivo gerado por tools.BookBuilder.
+	 * IOException: se o arquivo não puder ser lido ou não for um livro válido.
+	 */
+	public OpeningBook(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			// Leia o cabeçalho
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {}
+			header.flip();
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC ||
+					header.getInt() != RECORD_SIZE) {
+				throw new IOException("not an opening book file: " + file);
+			}
+			long count = header.getLong();
+			if (count < 0 || count > Integer.MAX_VALUE / RECORD_SIZE ||
+					channel.size() != HEADER_SIZE + count * RECORD_SIZE) {
+				throw new IOException("corrupted opening book file: " + file);
+			}
+
+			// Mapeie os registros
+			this.size = (int) count;
+			this.records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE,
+					(long) size * RECORD_SIZE);
+		}
+	}
+
+	// Obtém o livro compartilhado, carregado na primeira chamada do arquivo definido pela propriedade checkers.book (ou do arquivo padrão).
+	// Se o arquivo não existir ou for inválido, o livro fica vazio.
+	public static synchronized OpeningBook getDefault() {
+		if (defaultBook == null) {
+			Path file = Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+			try {
+				defaultBook = Files.isRegularFile(file)?
+						new OpeningBook(file) : new OpeningBook();
+			} catch (IOException e) {
+				defaultBook = new OpeningBook();
+			}
+		}
+		return defaultBook;
+	}
+
+	/*
+	 * Escolhe o movimento do livro para a posição atual de um jogo: o de maior pontuação (vitórias mais metade dos empates, sobre o peso) entre
+	 * os movimentos com pelo menos o peso mínimo, e, com pontuações iguais, o mais jogado. Apenas movimentos legais são considerados, o que
+	 * protege contra colisões do código de Zobrist.
+	 *
+	 * game: o jogo.
+	 * legal: os movimentos legais da posição atual (de MoveGenerator.generate).
+	 * a posição do movimento escolhido em legal, ou -1 se a posição não estiver no livro.
+	 */
+	public int probe(Game game, MoveList legal) {
+		int first = find(game.getHash());
+		if (first < 0) {
+			return -1;
+		}
+
+		// Compare os movimentos da posição
+		long key = game.getHash();
+		int best = -1;
+		long bestPoints = 0, bestWeight = 0;
+		for (int i = first; i < size && getKey(i) == key; i ++) {
+			int weight = getWeight(i);
+			if (weight < minWeight) {
+				break;
+			}
+			int index = legal.indexOf(getMove(i), getCaptures(i));
+			if (index < 0) {
+				continue;
+			}
+
+			// Compare (2 * vitórias + empates) / peso sem divisões
+			long points = 2L * getWins(i) + getDraws(i);
+			if (best < 0 || points * bestWeight > bestPoints * weight) {
+				best = index;
+				bestPoints = points;
+				bestWeight = weight;
+			}
+		}
+
+		return best;
+	}
+
+	// Procura o primeiro registro de uma posição por busca binária.
+	// key: o código de Zobrist da posição.
+	// a posição do primeiro registro, ou -1 se a posição não estiver no livro.
+	public int find(long key) {
+		int low = 0, high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (getKey(mid) < key) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return (low < size && getKey(low) == key)? low : -1;
+	}
+
+	// Obtém o código de Zobrist da posição de um registro.
+	// i: a posição do registro (de 0 a size() - 1 inclusive).
+	public long getKey(int i) {
+		return records.getLong(i * RECORD_SIZE);
+	}
+
+	// Obtém o movimento compactado de um registro.
+	public int getMove(int i) {
+		return records.getInt(i * RECORD_SIZE + MOVE_OFFSET);
+	}
+
+	// Obtém a máscara das peças capturadas pelo movimento de um registro.
+	public int getCaptures(int i) {
+		return records.getInt(i * RECORD_SIZE + CAPTURES_OFFSET);
+	}
+
+	// Obtém o peso (o número de partidas) de um registro.
+	public int getWeight(int i) {
+		return records.getInt(i * RECORD_SIZE + WEIGHT_OFFSET);
+	}
+
+	// Obtém o número de vitórias de um registro.
+	public int getWins(int i) {
+		return records.getInt(i * RECORD_SIZE + WINS_OFFSET);
+	}
+
+	// Obtém o número de empates de um registro.
+	public int getDraws(int i) {
+		return records.getInt(i * RECORD_SIZE + DRAWS_OFFSET);
+	}
+
+	// Obtém o número de registros.
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int getMinWeight() {
+		return minWeight;
+	}
+
+	// Define o peso mínimo de um movimento para que ele seja escolhido (movimentos jogados poucas vezes têm estatísticas pouco confiáveis).
+	public void setMinWeight(int minWeight) {
+		this.minWeight = Math.max(1, minWeight);
+	}
+
+	// Escreve o cabeçalho de um arquivo de livro.
+	// buffer: o buffer onde o cabeçalho é escrito (pelo menos 16 bytes).
+	// count: o número de registros do arquivo.
+	public static void putHeader(ByteBuffer buffer, long count) {
+		buffer.putInt(MAGIC);
+		buffer.putInt(RECORD_SIZE);
+		buffer.putLong(count);
+	}
+
+	// Escreve um registro.
+	// buffer: o buffer onde o registro é escrito (pelo menos 28 bytes).
+	public static void putRecord(ByteBuffer buffer, long key, int move,
+			int captures, int weight, int wins, int draws) {
+		buffer.putLong(key);
+		buffer.putInt(move);
+		buffer.putInt(captures);
+		buffer.putInt(weight);
+		buffer.putInt(wins);
+		buffer.putInt(draws);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[records=" + size
+				+ ", minWeight=" + minWeight + "]";
+	}
+}
@@ -0,0 +1,704 @@
+// Descrição: Esta classe é o motor de busca usado pelo jogador de computador para escolher um movimento.
+
+package logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.Board;
+import model.Game;
+import model.MoveList;
+
+/* A classe implementa uma busca negamax com poda alfa-beta e aprofundamento iterativo. A busca é feita em uma única cópia do jogo, fazendo e
+ * desfazendo movimentos, e os resultados são guardados em uma tabela de transposição para ordenar os movimentos das iterações seguintes.
+ * Cada salto múltiplo é gerado inteiro (veja MoveGenerator.generate) e conta como um único movimento.
+ *
+ * Os movimentos de cada posição são tentados na ordem: o melhor movimento da tabela, os saltos que capturam mais peças (e mais Damas), as
+ * promoções, os dois movimentos "assassinos" do nível (que causaram o último corte em posições irmãs) e, por fim, os demais pela tabela de
+ * histórico, que soma depth * depth para cada par (origem, destino) que causou um corte. A taxa de cortes no primeiro movimento (veja
+ * getFirstMoveCutoffRate) mede a qualidade dessa ordem.
+ *
+ * Com mais de uma thread, a busca usa Lazy SMP: as threads auxiliares buscam a mesma posição em paralelo, com profundidades alternadas, e só se
+ * comunicam pela tabela de transposição compartilhada. O resultado é sempre o da thread principal, de modo que com uma única thread a busca é
+ * determinística.
+ */
+public class Search {
+
+	// A profundidade máxima (em movimentos) que a busca pode alcançar.
+	public static final int MAX_PLY = 128;
+
+	// A pontuação de uma vitória na raiz. Vitórias mais distantes valem um pouco menos.
+	public static final int WIN = 30000;
+
+	// Pontuações com valor absoluto a partir deste são vitórias ou derrotas.
+	public static final int WIN_THRESHOLD = WIN - MAX_PLY;
+
+	// Um valor maior que qualquer pontuação.
+	private static final int INFINITY = WIN + 1;
+
+	// A máscara do número de posições entre duas verificações dos limites da busca.
+	private static final int CHECK_MASK = 1023;
+
+	// As prioridades de ordenação do movimento da tabela, dos saltos, das promoções e dos dois movimentos assassinos.
+	private static final int TT_PRIORITY = 1 << 30, CAPTURE_PRIORITY = 1 << 28,
+			PROMOTION_PRIORITY = 3 << 26, KILLER_PRIORITY = 2 << 26;
+
+	// O valor máximo de uma entrada da tabela de histórico; ao ultrapassá-lo, todas as entradas são divididas por 2.
+	private static final int HISTORY_MAX = 1 << 18;
+
+	// A tabela de transposição usada (e compartilhada) pelas threads da busca.
+	private final TranspositionTable table;
+
+	// As bases de dados de finais consultadas nas posições com poucas peças, ou null.
+	private Tablebase tablebase;
+
+	// O número máximo de peças das posições consultadas nas bases de dados nesta busca (0 se não houver bases).
+	private int tablebasePieces;
+
+	// A thread principal da busca, que produz o resultado.
+	private final Worker main = new Worker();
+
+	// As threads auxiliares da busca.
+	private Worker[] helpers = new Worker[0];
+
+	// O executor das threads auxiliares, ou null se houver apenas uma thread.
+	private ExecutorService pool;
+
+	// A bandeira que faz as threads auxiliares pararem quando a thread principal termina.
+	private volatile boolean stopped;
+
+	// O número de posições visitadas na última busca, somando todas as threads.
+	private long nodes;
+
+	// O número de posições visitadas até agora pela thread principal na busca em andamento.
+	private volatile long progressNodes;
+
+	// O número de cortes beta na última busca, e quantos deles foram causados pelo primeiro movimento tentado.
+	private long cutoffs, firstCutoffs;
+
+	// A máscara das peças capturadas pelo melhor movimento.
+	private int bestCaptures;
+
+	// O caminho do melhor movimento (veja MoveList).
+	private long bestPath;
+
+	// O número máximo de posições da thread principal, ou 0 se não houver limite.
+	private long nodeLimit;
+
+	// O instante (System.nanoTime) em que a busca deve parar, ou 0 se não houver limite de tempo.
+	private long deadline;
+
+	// O instante depois do qual uma nova iteração não é iniciada, pois provavelmente não terminaria a tempo.
+	private long softDeadline;
+
+	public Search() {
+		this(new TranspositionTable());
+	}
+
+	public Search(TranspositionTable table) {
+		this.table = (table == null)? new TranspositionTable() : table;
+	}
+
+	/*
+	 * Procura o melhor movimento para o jogador da vez, aumentando a profundidade de 1 até a profundidade máxima. O jogo não é alterado.
+	 *
+	 * game: o jogo a ser analisado.
+	 * maxDepth: a profundidade máxima da busca.
+	 * o melhor movimento compactado (veja MoveList), ou MoveList.NO_MOVE se não houver movimentos.
+	 */
+	public int search(Game game, int maxDepth) {
+		return search(game, SearchLimits.depth(maxDepth));
+	}
+
+	/*
+	 * Procura o melhor movimento para o jogador da vez dentro dos limites especificados. Quando um limite é atingido no meio de uma iteração,
+	 * o resultado é o da última iteração completa. O jogo não é alterado.
+	 *
+	 * game: o jogo a ser analisado.
+	 * limits: os limites da busca.
+	 * o melhor movimento compactado (veja MoveList), ou MoveList.NO_MOVE se não houver movimentos.
+	 */
+	public int search(Game game, SearchLimits limits) {
+
+		// Prepare a busca
+		long start = System.nanoTime(), time = limits.getAllocation();
+		this.nodeLimit = limits.getNodes();
+		this.deadline = (time > 0)? start + time * 1000000L : 0;
+		this.softDeadline = (time > 0)? start + time * 500000L : 0;
+		int maxDepth = limits.getDepth();
+		this.tablebasePieces = (tablebase == null)? 0 : tablebase.getMaxPieces();
+		table.newSearch();
+		this.stopped = false;
+		this.progressNodes = 0;
+
+		// Inicie as threads auxiliares, cada uma com a sua cópia do jogo
+		List<Future<?>> running = new ArrayList<>();
+		for (int i = 0; i < helpers.length; i ++) {
+			Worker helper = helpers[i];
+			Game copy = game.copy();
+			int first = 1 + (i + 1) % 2;
+			running.add(pool.submit(() -> helper.iterate(copy, first, maxDepth)));
+		}
+
+		// A thread principal determina o resultado
+		main.iterate(game.copy(), 1, maxDepth);
+		this.stopped = true;
+		long total = main.nodes;
+		long cutoffs = main.cutoffs, firstCutoffs = main.firstCutoffs;
+		boolean interrupted = false;
+		for (int i = 0; i < running.size(); i ++) {
+
+			// Espere a thread auxiliar mesmo se esta for interrompida, para que ela não continue durante a próxima busca
+			while (true) {
+				try {
+					running.get(i).get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				}
+			}
+			total += helpers[i].nodes;
+			cutoffs += helpers[i].cutoffs;
+			firstCutoffs += helpers[i].firstCutoffs;
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		this.nodes = total;
+		this.cutoffs = cutoffs;
+		this.firstCutoffs = firstCutoffs;
+
+		// Se nem a primeira iteração terminou, responda com qualquer movimento legal
+		MoveList list = main.moves[0];
+		MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+				game.getSkipIndex(), list);
+		if (main.bestMove == MoveList.NO_MOVE && !list.isEmpty()) {
+			main.bestMove = list.get(0);
+			main.bestCaptures = list.getCaptures(0);
+			main.line = new int[] {main.bestMove};
+			main.lineCaptures = new int[] {main.bestCaptures};
+		}
+		
+		// Guarde as capturas e o caminho do melhor movimento, necessários para fazê-lo (as capturas distinguem as cadeias gêmeas)
+		int index = list.indexOf(main.bestMove, main.bestCaptures);
+		this.bestCaptures = (index < 0)? 0 : list.getCaptures(index);
+		this.bestPath = (index < 0)? 0 : list.getPath(index);
+
+		return main.bestMove;
+	}
+
+	// Interrompe a busca em andamento, que responde com o melhor movimento encontrado até agora. Interromper a thread que chamou search
+	// (Thread.interrupt) tem o mesmo efeito, mesmo que a busca ainda não tenha começado.
+	public void stop() {
+		this.stopped = true;
+	}
+
+	// Define o número de threads usadas pela busca. Com 1 thread (o padrão), nenhuma thread auxiliar é criada.
+	// threads: o número de threads (pelo menos 1).
+	public void setThreads(int threads) {
+		threads = Math.max(1, threads);
+		if (threads == helpers.length + 1) {
+			return;
+		}
+
+		// Recrie as threads auxiliares
+		if (pool != null) {
+			pool.shutdownNow();
+			this.pool = null;
+		}
+		this.helpers = new Worker[threads - 1];
+		for (int i = 0; i < helpers.length; i ++) {
+			this.helpers[i] = new Worker();
+		}
+		if (helpers.length > 0) {
+			this.pool = Executors.newFixedThreadPool(helpers.length, r -> {
+				Thread t = new Thread(r, "search-helper");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	public int getThreads() {
+		return helpers.length + 1;
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	public Tablebase getTablebase() {
+		return tablebase;
+	}
+
+	// Define as bases de dados de finais consultadas pela busca (null para nenhuma).
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	// Obtém o número de cortes beta da última busca, somando todas as threads.
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+	// Obtém o número de cortes beta da última busca causados pelo primeiro movimento tentado.
+	public long getFirstMoveCutoffs() {
+		return firstCutoffs;
+	}
+
+	// Obtém a fração dos cortes beta causados pelo primeiro movimento tentado (de 0 a 1), que mede a qualidade da ordem dos movimentos.
+	public double getFirstMoveCutoffRate() {
+		return (cutoffs == 0)? 0 : (double) firstCutoffs / cutoffs;
+	}
+
+	// Obtém o número de posições visitadas até agora pela thread principal. Pode ser chamado de outra thread durante a busca, junto com
+	// getDepth, getBestMove e getScore, para mostrar o progresso; o valor é atualizado a cada 1024 posições.
+	public long getProgressNodes() {
+		return progressNodes;
+	}
+
+	public int getBestMove() {
+		return main.bestMove;
+	}
+
+	// Obtém a máscara das peças capturadas pelo melhor movimento, para fazê-lo com Game.makeMove.
+	public int getBestCaptures() {
+		return bestCaptures;
+	}
+
+	// Obtém o caminho do melhor movimento (veja MoveList).
+	public long getBestPath() {
+		return bestPath;
+	}
+
+	public int getScore() {
+		return main.score;
+	}
+
+	public int getDepth() {
+		return main.depth;
+	}
+
+	// Obtém a variante principal da última iteração completa, começando pelo melhor movimento.
+	public int[] getPrincipalVariation() {
+		return main.line.clone();
+	}
+
+	// Obtém a máscara das peças capturadas por cada movimento da variante principal, na mesma ordem de getPrincipalVariation. Junto com o
+	// movimento compactado, a máscara identifica a cadeia de saltos (veja MoveList).
+	public int[] getPrincipalVariationCaptures() {
+		return main.lineCaptures.clone();
+	}
+
+	// Converte o valor de uma posição nas bases de dados em uma pontuação relativa à raiz.
+	private static int fromTablebase(int value, int ply) {
+		if (value == Tablebase.DRAW) {
+			return 0;
+		}
+		int distance = ply + Tablebase.getDistance(value);
+		int score = (distance < MAX_PLY)? WIN - distance : WIN_THRESHOLD - 1;
+		return Tablebase.isWin(value)? score : -score;
+	}
+
+	// Converte uma pontuação de vitória relativa à raiz em uma relativa à posição, para guardá-la na tabela.
+	private static int toTable(int score, int ply) {
+		if (score >= WIN_THRESHOLD) {
+			return score + ply;
+		} else if (score <= -WIN_THRESHOLD) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	// Converte uma pontuação guardada na tabela de volta para uma relativa à raiz.
+	private static int fromTable(int score, int ply) {
+		if (score >= WIN_THRESHOLD) {
+			return score - ply;
+		} else if (score <= -WIN_THRESHOLD) {
+			return score + ply;
+		}
+		return score;
+	}
+
+	// A classe guarda o estado de uma thread de busca: as listas de movimentos, a variante principal e o resultado da última iteração completa.
+	private class Worker {
+
+		// As listas de movimentos reutilizadas em cada nível da busca.
+		private final MoveList[] moves = new MoveList[MAX_PLY];
+
+		// A tabela triangular com a variante principal de cada nível.
+		private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+
+		// As capturas de cada movimento da tabela triangular, que distinguem as cadeias gêmeas.
+		private final int[][] pvCaptures = new int[MAX_PLY][MAX_PLY];
+
+		// O comprimento da variante principal de cada nível.
+		private final int[] pvLength = new int[MAX_PLY];
+
+		// As prioridades de ordenação dos movimentos de cada nível.
+		private final int[][] priorities = new int[MAX_PLY][MoveList.DEFAULT_CAPACITY];
+
+		// Os dois movimentos assassinos de cada nível. São sempre movimentos simples, que não têm cadeias gêmeas, de modo que o movimento
+		// compactado basta para identificá-los.
+		private final int[][] killers = new int[MAX_PLY][2];
+
+		// A tabela de histórico, indexada por origem * 32 + destino.
+		private final int[] history = new int[32 * 32];
+
+		// O número de posições visitadas.
+		private long nodes;
+
+		// O número de cortes beta, e quantos deles foram causados pelo primeiro movimento tentado.
+		private long cutoffs, firstCutoffs;
+
+		// O melhor movimento da última iteração completa (volátil para que o progresso possa ser lido de outra thread).
+		private volatile int bestMove;
+
+		// As capturas do melhor movimento.
+		private volatile int bestCaptures;
+
+		// A pontuação do melhor movimento, do ponto de vista do jogador da vez.
+		private volatile int score;
+
+		// A última profundidade completada.
+		private volatile int depth;
+
+		// A variante principal da última iteração completa.
+		private int[] line = new int[0];
+
+		// As capturas de cada movimento da variante principal.
+		private int[] lineCaptures = new int[0];
+
+		private Worker() {
+			for (int i = 0; i < MAX_PLY; i ++) {
+				this.moves[i] = new MoveList();
+			}
+		}
+
+		// Faz o aprofundamento iterativo a partir da profundidade inicial, até a máxima ou até a busca ser interrompida.
+		private void iterate(Game root, int first, int maxDepth) {
+			this.nodes = 0;
+			this.cutoffs = 0;
+			this.firstCutoffs = 0;
+			for (int[] k : killers) {
+				Arrays.fill(k, MoveList.NO_MOVE);
+			}
+			ageHistory();
+			this.bestMove = MoveList.NO_MOVE;
+			this.bestCaptures = 0;
+			this.score = 0;
+			this.depth = 0;
+			this.line = new int[0];
+			this.lineCaptures = new int[0];
+			for (int d = first; d <= maxDepth && !stopped; d ++) {
+				int s = negamax(root, d, 0, -INFINITY, INFINITY);
+				if (stopped || pvLength[0] == 0) {
+					break;
+				}
+				this.bestMove = pv[0][0];
+				this.bestCaptures = pvCaptures[0][0];
+				this.score = s;
+				this.depth = d;
+				this.line = Arrays.copyOf(pv[0], pvLength[0]);
+				this.lineCaptures = Arrays.copyOf(pvCaptures[0], pvLength[0]);
+
+				// O resultado já é conhecido, ou a próxima iteração não terminaria a tempo
+				if (Math.abs(s) >= WIN_THRESHOLD || (this == main &&
+						softDeadline != 0 && System.nanoTime() - softDeadline >= 0)) {
+					break;
+				}
+			}
+		}
+
+		/*
+		 * Busca a posição atual com poda alfa-beta.
+		 *
+		 * game: o jogo, que é restaurado antes do retorno.
+		 * depth: a profundidade restante.
+		 * ply: a distância até a raiz.
+		 * alpha: a pontuação mínima garantida para o jogador da vez.
+		 * beta: a pontuação máxima que o adversário permite.
+		 * a pontuação da posição do ponto de vista do jogador da vez (sem significado se a busca for interrompida).
+		 */
+		private int negamax(Game game, int depth, int ply, int alpha, int beta) {
+
+			this.pvLength[ply] = 0;
+			this.nodes ++;
+			if (this == main && (nodes & CHECK_MASK) == 0) {
+				checkLimits();
+			}
+			if (stopped) {
+				return 0;
+			}
+			if (ply >= MAX_PLY - 1) {
+				return Evaluator.evaluate(game);
+			}
+
+			// Com poucas peças, o valor exato está nas bases de dados
+			Board board = game.getBoardView();
+			if (ply > 0 && game.getSkipIndex() < 0 && Integer.bitCount(
+					board.getBlack() | board.getWhite()) <= tablebasePieces) {
+				int value = tablebase.probe(board, game.isP1Turn());
+				if (value != Tablebase.NOT_FOUND) {
+					return fromTablebase(value, ply);
+				}
+			}
+
+			// Nas folhas, resolva os saltos obrigatórios antes de avaliar
+			if (depth <= 0) {
+				return quiesce(game, ply, alpha, beta);
+			}
+
+			// Consulte a tabela de transposição
+			long key = game.getHash();
+			long entry = table.probe(key);
+			int ttMove = MoveList.NO_MOVE, ttTwin = 0;
+			if (entry != 0) {
+				ttMove = TranspositionTable.getMove(entry);
+				ttTwin = TranspositionTable.getTwin(entry);
+				if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+					int s = fromTable(TranspositionTable.getScore(entry), ply);
+					int bound = TranspositionTable.getBound(entry);
+					if (bound == TranspositionTable.BOUND_EXACT ||
+							(bound == TranspositionTable.BOUND_LOWER && s >= beta) ||
+							(bound == TranspositionTable.BOUND_UPPER && s <= alpha)) {
+						return s;
+					}
+				}
+			}
+
+			// Sem movimentos, o jogador da vez perdeu
+			MoveList list = moves[ply];
+			MoveGenerator.generate(board, game.isP1Turn(), game.getSkipIndex(),
+					list);
+			int n = list.size();
+			if (n == 0) {
+				return -WIN + ply;
+			}
+
+			// Busque o melhor movimento, na ordem das prioridades
+			int best = -INFINITY, bestMove = MoveList.NO_MOVE, bestIndex = -1;
+			int alphaStart = alpha;
+			int[] priority = prioritize(list, ply, ttMove, ttTwin,
+					board.getKings());
+			for (int i = 0; i < n; i ++) {
+				selectNext(list, priority, i);
+
+				// Cada cadeia de saltos é um movimento completo, e a vez sempre passa ao adversário
+				int m = list.get(i);
+				game.makeMove(m, list.getCaptures(i));
+				int s = -negamax(game, depth - 1, ply + 1, -beta, -alpha);
+				game.unmakeMove();
+				if (stopped) {
+					return 0;
+				}
+
+				if (s > best) {
+					best = s;
+					bestMove = m;
+					bestIndex = i;
+					if (s > alpha) {
+						alpha = s;
+						updatePV(ply, m, list.getCaptures(i));
+						if (alpha >= beta) {
+							updateOrdering(m, ply, depth, i);
+							break;
+						}
+					}
+				}
+			}
+
+			// Guarde o resultado
+			int bound = (best <= alphaStart)? TranspositionTable.BOUND_UPPER
+					: (best >= beta)? TranspositionTable.BOUND_LOWER
+					: TranspositionTable.BOUND_EXACT;
+			table.store(key, depth, bound, toTable(best, ply), bestMove,
+					(bestIndex < 0)? 0 : list.getTwinRank(bestIndex));
+
+			return best;
+		}
+
+		/*
+		 * Estende as folhas da busca enquanto o jogador da vez for obrigado a saltar. Como os saltos são obrigatórios, uma posição com saltos não
+		 * pode ser avaliada parada: todos os saltos são buscados, e a avaliação estática só é usada (stand-pat) quando o jogador da vez não tem
+		 * saltos. Cada salto remove peças, de modo que a extensão sempre termina. A posição já foi contada em nodes por quem chamou o método.
+		 *
+		 * game: o jogo, que é restaurado antes do retorno.
+		 * ply: a distância até a raiz.
+		 * alpha: a pontuação mínima garantida para o jogador da vez.
+		 * beta: a pontuação máxima que o adversário permite.
+		 * a pontuação da posição do ponto de vista do jogador da vez (sem significado se a busca for interrompida).
+		 */
+		private int quiesce(Game game, int ply, int alpha, int beta) {
+
+			this.pvLength[ply] = 0;
+			if (ply >= MAX_PLY - 1) {
+				return Evaluator.evaluate(game);
+			}
+
+			// Sem movimentos, o jogador da vez perdeu; sem saltos, a posição está parada
+			Board board = game.getBoardView();
+			MoveList list = moves[ply];
+			MoveGenerator.generate(board, game.isP1Turn(), game.getSkipIndex(),
+					list);
+			int n = list.size();
+			if (n == 0) {
+				return -WIN + ply;
+			}
+			if (!MoveList.isSkip(list.get(0))) {
+				return Evaluator.evaluate(game);
+			}
+
+			// Busque os saltos, começando pelos que capturam mais
+			int best = -INFINITY;
+			int[] priority = prioritize(list, ply, MoveList.NO_MOVE, 0,
+					board.getKings());
+			for (int i = 0; i < n; i ++) {
+				selectNext(list, priority, i);
+				int m = list.get(i);
+				game.makeMove(m, list.getCaptures(i));
+				this.nodes ++;
+				if (this == main && (nodes & CHECK_MASK) == 0) {
+					checkLimits();
+				}
+				int s = stopped? 0 : -quiesce(game, ply + 1, -beta, -alpha);
+				game.unmakeMove();
+				if (stopped) {
+					return 0;
+				}
+
+				if (s > best) {
+					best = s;
+					if (s > alpha) {
+						alpha = s;
+						updatePV(ply, m, list.getCaptures(i));
+						if (alpha >= beta) {
+							break;
+						}
+					}
+				}
+			}
+			return best;
+		}
+
+		/*
+		 * Calcula a prioridade de ordenação de cada movimento da lista.
+		 *
+		 * list: os movimentos da posição.
+		 * ply: a distância até a raiz.
+		 * ttMove: o melhor movimento da tabela de transposição, ou MoveList.NO_MOVE.
+		 * ttTwin: a ordem do movimento da tabela entre as suas cadeias gêmeas (veja MoveList.getTwinRank).
+		 * kings: a máscara das Damas do tabuleiro.
+		 * as prioridades, na mesma ordem da lista.
+		 */
+		private int[] prioritize(MoveList list, int ply, int ttMove, int ttTwin,
+				int kings) {
+			int n = list.size();
+			if (priorities[ply].length < n) {
+				this.priorities[ply] = new int[n * 2];
+			}
+			int[] priority = priorities[ply];
+			for (int i = 0; i < n; i ++) {
+				int m = list.get(i);
+				int p = history[MoveList.getStartIndex(m) * 32 + MoveList.getEndIndex(m)];
+				if (m == ttMove && list.getTwinRank(i) == ttTwin) {
+					p = TT_PRIORITY;
+				} else if (MoveList.isSkip(m)) {
+
+					// Mais capturas primeiro, depois mais Damas capturadas e promoções
+					int captures = list.getCaptures(i);
+					p += CAPTURE_PRIORITY + (Integer.bitCount(captures) << 22)
+							+ (Integer.bitCount(captures & kings) << 20)
+							+ (MoveList.isPromotion(m)? 1 << 19 : 0);
+				} else if (MoveList.isPromotion(m)) {
+					p += PROMOTION_PRIORITY;
+				} else if (m == killers[ply][0]) {
+					p = KILLER_PRIORITY + 1;
+				} else if (m == killers[ply][1]) {
+					p = KILLER_PRIORITY;
+				}
+				priority[i] = p;
+			}
+			return priority;
+		}
+
+		// Move o movimento de maior prioridade entre as posições i e o fim da lista para a posição i.
+		private void selectNext(MoveList list, int[] priority, int i) {
+			int best = i;
+			for (int j = i + 1; j < list.size(); j ++) {
+				if (priority[j] > priority[best]) {
+					best = j;
+				}
+			}
+			if (best != i) {
+				list.swap(i, best);
+				int p = priority[i];
+				priority[i] = priority[best];
+				priority[best] = p;
+			}
+		}
+
+		/*
+		 * Atualiza os contadores, os movimentos assassinos e a tabela de histórico depois de um corte beta.
+		 *
+		 * move: o movimento que causou o corte.
+		 * ply: a distância até a raiz.
+		 * depth: a profundidade restante.
+		 * i: a posição do movimento na ordem em que os movimentos foram tentados.
+		 */
+		private void updateOrdering(int move, int ply, int depth, int i) {
+			this.cutoffs ++;
+			if (i == 0) {
+				this.firstCutoffs ++;
+			}
+			if (!MoveList.isSkip(move) && killers[ply][0] != move) {
+				this.killers[ply][1] = killers[ply][0];
+				this.killers[ply][0] = move;
+			}
+			int h = MoveList.getStartIndex(move) * 32 + MoveList.getEndIndex(move);
+			this.history[h] += depth * depth;
+			if (history[h] > HISTORY_MAX) {
+				ageHistory();
+			}
+		}
+
+		// Divide todas as entradas da tabela de histórico por 2, para que os cortes recentes pesem mais.
+		private void ageHistory() {
+			for (int i = 0; i < history.length; i ++) {
+				this.history[i] >>= 1;
+			}
+		}
+
+		// Para a busca se o limite de posições ou de tempo foi atingido ou se a thread que chamou search foi interrompida.
+		private void checkLimits() {
+			progressNodes = nodes;
+			if ((nodeLimit > 0 && nodes >= nodeLimit) ||
+					(deadline != 0 && System.nanoTime() - deadline >= 0) ||
+					Thread.currentThread().isInterrupted()) {
+				stopped = true;
+			}
+		}
+
+		// Coloca o movimento no início da variante principal do nível, seguido da variante do nível seguinte.
+		private void updatePV(int ply, int move, int captures) {
+			int[] line = pv[ply], next = pv[ply + 1];
+			int length = pvLength[ply + 1];
+			line[0] = move;
+			System.arraycopy(next, 0, line, 1, length);
+			this.pvCaptures[ply][0] = captures;
+			System.arraycopy(pvCaptures[ply + 1], 0, pvCaptures[ply], 1, length);
+			this.pvLength[ply] = length + 1;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+// Descrição: Esta classe define quanto a busca pode trabalhar antes de responder com um movimento.
+
+package logic;
+
+/* A classe reúne os limites de uma busca: a profundidade máxima, o número máximo de posições, o tempo por movimento e o relógio de jogo (tempo
+ * restante, incremento e movimentos até o próximo controle). Qualquer combinação pode ser usada; a busca para no primeiro limite atingido e
+ * responde com o melhor movimento da última iteração completa. Um valor 0 (ou negativo) desativa o limite correspondente.
+ */
+public class SearchLimits {
+
+	// O número de movimentos restantes presumido quando o relógio não tem controle de movimentos.
+	public static final int DEFAULT_MOVES_TO_GO = 30;
+
+	// O tempo reservado em cada movimento para o atraso de responder, em milissegundos.
+	public static final long MOVE_OVERHEAD = 20;
+
+	// A profundidade máxima da busca.
+	private int depth;
+
+	// O número máximo de posições visitadas pela thread principal.
+	private long nodes;
+
+	// O tempo máximo por movimento, em milissegundos.
+	private long moveTime;
+
+	// O tempo restante no relógio do jogador, em milissegundos.
+	private long clock;
+
+	// O tempo adicionado ao relógio depois de cada movimento, em milissegundos.
+	private long increment;
+
+	// O número de movimentos até o próximo controle de tempo.
+	private int movesToGo;
+
+	// Cria limites que permitem buscar até a profundidade máxima.
+	public SearchLimits() {
+		this(Search.MAX_PLY / 2);
+	}
+
+	// depth: a profundidade máxima da busca.
+	public SearchLimits(int depth) {
+		setDepth(depth);
+	}
+
+	// Cria limites com apenas uma profundidade máxima.
+	public static SearchLimits depth(int depth) {
+		return new SearchLimits(depth);
+	}
+
+	// Cria limites com apenas um número máximo de posições.
+	public static SearchLimits nodes(long nodes) {
+		SearchLimits limits = new SearchLimits();
+		limits.setNodes(nodes);
+		return limits;
+	}
+
+	// Cria limites com apenas um tempo máximo por movimento, em milissegundos.
+	public static SearchLimits moveTime(long millis) {
+		SearchLimits limits = new SearchLimits();
+		limits.setMoveTime(millis);
+		return limits;
+	}
+
+	/*
+	 * Cria limites a partir de um relógio de jogo.
+	 *
+	 * clock: o tempo restante no relógio do jogador, em milissegundos.
+	 * increment: o tempo adicionado depois de cada movimento, em milissegundos.
+	 * movesToGo: o número de movimentos até o próximo controle, ou 0 se o tempo for para o jogo inteiro.
+	 * os limites correspondentes.
+	 */
+	public static SearchLimits clock(long clock, long increment, int movesToGo) {
+		SearchLimits limits = new SearchLimits();
+		limits.setClock(clock, increment, movesToGo);
+		return limits;
+	}
+
+	/*
+	 * Calcula o tempo que a busca pode usar neste movimento. Com um relógio, o tempo restante é dividido pelos movimentos até o próximo
+	 * controle e a maior parte do incremento é somada, sem nunca usar mais que o tempo restante menos a reserva.
+	 *
+	 * o tempo disponível em milissegundos, ou 0 se não houver limite de tempo.
+	 */
+	public long getAllocation() {
+		long time = 0;
+		if (clock > 0) {
+			int n = (movesToGo > 0)? movesToGo : DEFAULT_MOVES_TO_GO;
+			time = clock / n + increment * 3 / 4;
+			time = Math.min(time, clock - MOVE_OVERHEAD);
+		}
+		if (moveTime > 0) {
+			time = (time > 0)? Math.min(time, moveTime - MOVE_OVERHEAD)
+					: moveTime - MOVE_OVERHEAD;
+		}
+		if (clock > 0 || moveTime > 0) {
+			return Math.max(1, time);
+		}
+		return 0;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public void setDepth(int depth) {
+		this.depth = Math.max(1, Math.min(depth, Search.MAX_PLY / 2));
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public void setNodes(long nodes) {
+		this.nodes = Math.max(0, nodes);
+	}
+
+	public long getMoveTime() {
+		return moveTime;
+	}
+
+	public void setMoveTime(long moveTime) {
+		this.moveTime = Math.max(0, moveTime);
+	}
+
+	public long getClock() {
+		return clock;
+	}
+
+	public long getIncrement() {
+		return increment;
+	}
+
+	public int getMovesToGo() {
+		return movesToGo;
+	}
+
+	// Define o relógio de jogo (veja clock).
+	public void setClock(long clock, long increment, int movesToGo) {
+		this.clock = Math.max(0, clock);
+		this.increment = Math.max(0, increment);
+		this.movesToGo = Math.max(0, movesToGo);
+	}
+
+	public SearchLimits copy() {
+		SearchLimits limits = new SearchLimits(depth);
+		limits.setNodes(nodes);
+		limits.setMoveTime(moveTime);
+		limits.setClock(clock, increment, movesToGo);
+		return limits;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[depth=" + depth + ", nodes="
+				+ nodes + ", moveTime=" + moveTime + ", clock=" + clock
+				+ ", increment=" + increment + ", movesToGo=" + movesToGo + "]";
+	}
+}
@@ -0,0 +1,414 @@
+// Descrição: Esta classe consulta bases de dados de finais (vitória, derrota ou empate e a distância até o fim) mapeadas na memória.
+
+package logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import model.Board;
+
+/* A classe guarda, para cada combinação de material (número de peças comuns e Damas de cada jogador), um arquivo com o valor teórico de
+ * todas as posições sem salto pendente, gerado por tools.TablebaseBuilder. Os arquivos são mapeados na memória (MappedByteBuffer) e
+ * consultados sem cópia; o sistema operacional carrega apenas as páginas usadas.
+ *
+ * Cada posição ocupa um byte: 0 é um empate (ou uma posição inválida) e qualquer outro valor v significa que o jogo termina em v - 1 movimentos
+ * com jogo perfeito. Se v - 1 for ímpar, o jogador da vez vence; se for par, ele perde (0 movimentos: ele não tem movimentos).
+ *
+ * O índice de uma posição combina as posições das peças comuns pretas (entre os 28 ladrilhos fora da linha de promoção), das comuns brancas
+ * (entre os ladrilhos livres fora da sua linha de promoção), das Damas pretas e das Damas brancas (entre os ladrilhos livres restantes), cada
+ * uma pelo sistema numérico combinatório. Um arquivo tem um cabeçalho de 16 bytes seguido dos valores com as pretas na vez e depois dos
+ * valores com as brancas na vez.
+ */
+public class Tablebase {
+
+	// O nome da propriedade do sistema com a pasta das bases de dados.
+	public static final String PATH_PROPERTY = "checkers.tablebase";
+
+	// A pasta padrão das bases de dados.
+	public static final String DEFAULT_PATH = "tablebase";
+
+	// O número máximo de peças que o índice suporta.
+	public static final int MAX_PIECES = 8;
+
+	// O valor retornado quando a posição não está em nenhuma base de dados carregada.
+	public static final int NOT_FOUND = -1;
+
+	// O valor de uma posição empatada.
+	public static final int DRAW = 0;
+
+	// A distância máxima (em movimentos) que um valor pode guardar.
+	public static final int MAX_DISTANCE = 254;
+
+	// A extensão dos arquivos.
+	public static final String EXTENSION = ".cdb";
+
+	// O número que identifica um arquivo de base de dados ("CDB1").
+	private static final int MAGIC = 0x43444231;
+
+	// O tamanho do cabeçalho de um arquivo, em bytes.
+	private static final int HEADER_SIZE = 16;
+
+	// O número de valores de cada quantidade de peças em uma assinatura de material (0 a 12).
+	private static final int COUNTS = 13;
+
+	// O número de assinaturas de material possíveis.
+	private static final int SIGNATURES = COUNTS * COUNTS * COUNTS * COUNTS;
+
+	// O número de bits de cada bloco mapeado (os arquivos maiores que 1 GB usam vários blocos).
+	private static final int CHUNK_BITS = 30;
+
+	// Os ladrilhos onde uma peça comum preta pode estar (fora da linha de promoção).
+	private static final int BLACK_MEN_SQUARES = ~MoveGenerator.BLACK_KING_ROW;
+
+	// Os ladrilhos onde uma peça comum branca pode estar.
+	private static final int WHITE_MEN_SQUARES = ~MoveGenerator.WHITE_KING_ROW;
+
+	// Os coeficientes binomiais C(n, k) para n de 0 a 32 e k de 0 a 12.
+	private static final long[][] BINOMIAL = new long[33][COUNTS];
+
+	// A instância compartilhada, carregada da pasta padrão.
+	private static Tablebase defaultTablebase;
+
+	static {
+		for (int n = 0; n <= 32; n ++) {
+			BINOMIAL[n][0] = 1;
+			for (int k = 1; k < COUNTS && k <= n; k ++) {
+				BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+			}
+		}
+	}
+
+	// Os blocos mapeados de cada assinatura (ou null se ela não foi carregada).
+	private final MappedByteBuffer[][] tables = new MappedByteBuffer[SIGNATURES][];
+
+	// O maior número de peças tal que todas as assinaturas com até esse número estão carregadas.
+	private volatile int maxPieces;
+
+	// Cria uma base de dados vazia, à qual arquivos podem ser adicionados com load.
+	public Tablebase() {}
+
+	// Carrega todos os arquivos de uma pasta. Arquivos inválidos são ignorados.
+	// directory: a pasta com os arquivos.
+	public Tablebase(Path directory) {
+		if (directory == null || !Files.isDirectory(directory)) {
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+				"*" + EXTENSION)) {
+			for (Path file : files) {
+				try {
+					load(file);
+				} catch (IOException e) {}
+			}
+		} catch (IOException e) {}
+	}
+
+	// Obtém a base de dados compartilhada, carregada na primeira chamada da pasta definida pela propriedade checkers.tablebase (ou da pasta
+	// padrão). Se a pasta não existir, a base de dados fica vazia.
+	public static synchronized Tablebase getDefault() {
+		if (defaultTablebase == null) {
+			defaultTablebase = new Tablebase(Paths.get(
+					System.getProperty(PATH_PROPERTY, DEFAULT_PATH)));
+		}
+		return defaultTablebase;
+	}
+
+	/*
+	 * Mapeia um arquivo de base de dados na memória.
+	 *
+	 * file: o arquivo gerado por tools.TablebaseBuilder.
+	 * a assinatura de material do arquivo.
+	 * IOException: se o arquivo não puder ser lido ou não for uma base de dados válida.
+	 */
+	public synchronized int load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			// Leia o cabeçalho
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) >= 0) {}
+			header.flip();
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+				throw new IOException("not a tablebase file: " + file);
+			}
+			int signature = getSignature(header.get(), header.get(),
+					header.get(), header.get());
+			long size = header.getLong();
+			if (size != getSize(signature) ||
+					channel.size() != HEADER_SIZE + 2 * size) {
+				throw new IOException("corrupted tablebase file: " + file);
+			}
+
+			// Mapeie os valores em blocos
+			int chunks = (int) (((2 * size - 1) >> CHUNK_BITS) + 1);
+			MappedByteBuffer[] table = new MappedByteBuffer[chunks];
+			for (int i = 0; i < chunks; i ++) {
+				long offset = (long) i << CHUNK_BITS;
+				table[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_SIZE + offset, Math.min(1L << CHUNK_BITS, 2 * size - offset));
+			}
+			this.tables[signature] = table;
+			updateMaxPieces();
+
+			return signature;
+		}
+	}
+
+	/*
+	 * Consulta o valor de uma posição.
+	 *
+	 * board: o tabuleiro.
+	 * isBlackTurn: a bandeira indicando se é a vez das peças pretas.
+	 * o valor da posição (veja a descrição da classe), ou NOT_FOUND se a base de dados do material não estiver carregada.
+	 */
+	public int probe(Board board, boolean isBlackTurn) {
+		return probe(board.getBlack(), board.getWhite(), board.getKings(),
+				isBlackTurn);
+	}
+
+	/*
+	 * Consulta o valor de uma posição dada pelas máscaras de bits.
+	 *
+	 * black: a máscara das peças pretas.
+	 * white: a máscara das peças brancas.
+	 * kings: a máscara das Damas.
+	 * isBlackTurn: a bandeira indicando se é a vez das peças pretas.
+	 * o valor da posição, ou NOT_FOUND se a base de dados do material não estiver carregada.
+	 */
+	public int probe(int black, int white, int kings, boolean isBlackTurn) {
+		if (Integer.bitCount(black | white) > MAX_PIECES) {
+			return NOT_FOUND;
+		}
+		int signature = getSignature(black, white, kings);
+		MappedByteBuffer[] table = tables[signature];
+		if (table == null) {
+			return NOT_FOUND;
+		}
+		long i = getIndex(black, white, kings)
+				+ (isBlackTurn? 0 : getSize(signature));
+		return table[(int) (i >>> CHUNK_BITS)]
+				.get((int) (i & ((1L << CHUNK_BITS) - 1))) & 0xFF;
+	}
+
+	// Determina se a base de dados de uma assinatura de material está carregada.
+	public boolean contains(int signature) {
+		return signature >= 0 && signature < SIGNATURES && tables[signature] != null;
+	}
+
+	// Obtém o maior número de peças tal que todas as posições com até esse número de peças estão nas bases de dados carregadas.
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+	// Recalcula o maior número de peças com todas as assinaturas carregadas.
+	private void updateMaxPieces() {
+		int n = 1;
+		while (n < MAX_PIECES && isComplete(n + 1)) {
+			n ++;
+		}
+		this.maxPieces = (n >= 2)? n : 0;
+	}
+
+	// Determina se todas as assinaturas com exatamente n peças (e pelo menos uma de cada jogador) estão carregadas.
+	private boolean isComplete(int n) {
+		for (int b = 1; b < n; b ++) {
+			for (int bk = 0; bk <= b; bk ++) {
+				for (int wk = 0; wk <= n - b; wk ++) {
+					if (tables[getSignature(b - bk, bk, n - b - wk, wk)] == null) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	// Determina se o valor de uma posição é uma vitória para o jogador da vez.
+	public static boolean isWin(int value) {
+		return value > 0 && (value & 1) == 0;
+	}
+
+	// Determina se o valor de uma posição é uma derrota para o jogador da vez.
+	public static boolean isLoss(int value) {
+		return value > 0 && (value & 1) == 1;
+	}
+
+	// Obtém o número de movimentos até o fim do jogo de uma posição vencida ou perdida.
+	public static int getDistance(int value) {
+		return value - 1;
+	}
+
+	// Obtém o valor de uma posição que termina (com vitória ou derrota, dependendo da paridade) no número de movimentos especificado.
+	public static int toValue(int distance) {
+		return distance + 1;
+	}
+
+	// Obtém a assinatura de material com as quantidades especificadas de cada tipo de peça (de 0 a 12).
+	public static int getSignature(int blackMen, int blackKings, int whiteMen,
+			int whiteKings) {
+		return ((blackMen * COUNTS + blackKings) * COUNTS + whiteMen) * COUNTS
+				+ whiteKings;
+	}
+
+	// Obtém a assinatura de material de uma posição.
+	public static int getSignature(int black, int white, int kings) {
+		return getSignature(Integer.bitCount(black & ~kings),
+				Integer.bitCount(black & kings), Integer.bitCount(white & ~kings),
+				Integer.bitCount(white & kings));
+	}
+
+	// Obtém o número de peças comuns pretas, Damas pretas, peças comuns brancas ou Damas brancas (type de 0 a 3) de uma assinatura.
+	public static int getCount(int signature, int type) {
+		for (int i = type; i < 3; i ++) {
+			signature /= COUNTS;
+		}
+		return signature % COUNTS;
+	}
+
+	// Obtém o nome do arquivo de uma assinatura (por exemplo, "1100.cdb" para uma peça comum e uma Dama pretas contra uma peça comum branca).
+	public static String getFileName(int signature) {
+		return Integer.toString(getCount(signature, 0), COUNTS)
+				+ Integer.toString(getCount(signature, 1), COUNTS)
+				+ Integer.toString(getCount(signature, 2), COUNTS)
+				+ Integer.toString(getCount(signature, 3), COUNTS) + EXTENSION;
+	}
+
+	// Obtém o número de índices de uma assinatura para cada jogador da vez (alguns índices podem não corresponder a posições válidas).
+	public static long getSize(int signature) {
+		int bm = getCount(signature, 0), bk = getCount(signature, 1);
+		int wm = getCount(signature, 2), wk = getCount(signature, 3);
+		int free = 32 - bm - wm;
+		if (bm + wm > 28 || bk + wk > free) {
+			return 0;
+		}
+		return BINOMIAL[28][bm] * BINOMIAL[28][wm] * BINOMIAL[free][bk]
+				* BINOMIAL[free - bk][wk];
+	}
+
+	// Escreve o cabeçalho de um arquivo de base de dados.
+	// buffer: o buffer onde o cabeçalho é escrito (pelo menos 16 bytes).
+	// signature: a assinatura de material do arquivo.
+	public static void putHeader(ByteBuffer buffer, int signature) {
+		buffer.putInt(MAGIC);
+		for (int type = 0; type < 4; type ++) {
+			buffer.put((byte) getCount(signature, type));
+		}
+		buffer.putLong(getSize(signature));
+	}
+
+	/*
+	 * Obtém o índice de uma posição dentro da sua assinatura de material (sem contar o jogador da vez).
+	 *
+	 * black: a máscara das peças pretas.
+	 * white: a máscara das peças brancas.
+	 * kings: a máscara das Damas.
+	 * o índice, de 0 a getSize(getSignature(black, white, kings)) - 1.
+	 */
+	public static long getIndex(int black, int white, int kings) {
+		int bm = black & ~kings, wm = white & ~kings;
+		int bk = black & kings, wk = white & kings;
+		int free = ~(bm | wm);
+		long index = rank(bm, BLACK_MEN_SQUARES);
+		index = index * BINOMIAL[28][Integer.bitCount(wm)]
+				+ rank(wm, WHITE_MEN_SQUARES & ~bm);
+		index = index * BINOMIAL[Integer.bitCount(free)][Integer.bitCount(bk)]
+				+ rank(bk, free);
+		index = index * BINOMIAL[Integer.bitCount(free & ~bk)][Integer.bitCount(wk)]
+				+ rank(wk, free & ~bk);
+		return index;
+	}
+
+	/*
+	 * Obtém a posição correspondente a um índice.
+	 *
+	 * signature: a assinatura de material.
+	 * index: o índice da posição (veja getIndex).
+	 * masks: o vetor onde as máscaras das peças pretas, das brancas e das Damas são escritas (nessa ordem).
+	 * verdadeiro se o índice corresponde a uma posição válida.
+	 */
+	public static boolean getPosition(int signature, long index, int[] masks) {
+		int bmCount = getCount(signature, 0), bkCount = getCount(signature, 1);
+		int wmCount = getCount(signature, 2), wkCount = getCount(signature, 3);
+		int free = 32 - bmCount - wmCount;
+
+		// Separe as partes do índice, da última para a primeira
+		long n = BINOMIAL[free - bkCount][wkCount];
+		long wkRank = index % n;
+		index /= n;
+		n = BINOMIAL[free][bkCount];
+		long bkRank = index % n;
+		index /= n;
+		n = BINOMIAL[28][wmCount];
+		long wmRank = index % n;
+		long bmRank = index / n;
+
+		// Coloque as peças
+		int bm = unrank(bmRank, bmCount, BLACK_MEN_SQUARES);
+		int allowed = WHITE_MEN_SQUARES & ~bm;
+		if (wmRank >= BINOMIAL[Integer.bitCount(allowed)][wmCount]) {
+			return false;
+		}
+		int wm = unrank(wmRank, wmCount, allowed);
+		int bk = unrank(bkRank, bkCount, ~(bm | wm));
+		int wk = unrank(wkRank, wkCount, ~(bm | wm | bk));
+		masks[0] = bm | bk;
+		masks[1] = wm | wk;
+		masks[2] = bk | wk;
+
+		return true;
+	}
+
+	// Obtém a posição (no sistema numérico combinatório) de um subconjunto dos ladrilhos permitidos.
+	// set: o subconjunto.
+	// allowed: os ladrilhos permitidos (o subconjunto deve estar contido neles).
+	private static long rank(int set, int allowed) {
+		long rank = 0;
+		for (int k = 1; set != 0; k ++) {
+			int bit = set & -set;
+			rank += BINOMIAL[Integer.bitCount(allowed & (bit - 1))][k];
+			set &= set - 1;
+		}
+		return rank;
+	}
+
+	// Obtém o subconjunto dos ladrilhos permitidos com k elementos e a posição especificada (o inverso de rank).
+	private static int unrank(long rank, int k, int allowed) {
+		int set = 0;
+		int p = Integer.bitCount(allowed);
+		for (; k > 0; k --) {
+
+			// Encontre a maior posição p com C(p, k) <= rank
+			p --;
+			while (BINOMIAL[p][k] > rank) {
+				p --;
+			}
+			rank -= BINOMIAL[p][k];
+			set |= select(allowed, p);
+		}
+		return set;
+	}
+
+	// Obtém a máscara do p-ésimo (a partir de 0) bit definido da máscara.
+	private static int select(int mask, int p) {
+		for (; p > 0; p --) {
+			mask &= mask - 1;
+		}
+		return mask & -mask;
+	}
+
+	@Override
+	public String toString() {
+		int loaded = 0;
+		for (MappedByteBuffer[] table : tables) {
+			loaded += (table == null)? 0 : 1;
+		}
+		return getClass().getSimpleName() + "[signatures=" + loaded
+				+ ", maxPieces=" + maxPieces + "]";
+	}
+}
@@ -0,0 +1,318 @@
+// Descrição: Esta classe é uma tabela de transposição de tamanho fixo, que guarda resultados de busca indexados pelo código de Zobrist da posição.
+
+package logic;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.MoveList;
+
+/* A tabela usa dois vetores de long (código e dados) e pode ser compartilhada por várias threads de busca sem travas. Cada entrada guarda o
+ * código XOR os dados, de modo que uma entrada escrita pela metade por duas threads ao mesmo tempo simplesmente não é reconhecida na leitura.
+ * As entradas são agrupadas em baldes de dois: o primeiro é substituído apenas por buscas mais profundas (ou de uma busca mais recente) e o
+ * segundo é sempre substituído.
+ *
+ * Os dados de uma entrada usam os bits de um long da seguinte forma:
+ *
+ * bits 0 a 19: o melhor movimento compactado (veja MoveList).
+ * bits 20 a 35: a pontuação (16 bits com sinal).
+ * bits 36 a 43: a profundidade da busca.
+ * bits 44 a 45: o tipo de limite da pontuação.
+ * bits 46 a 53: a geração da busca que escreveu a entrada.
+ * bits 54 a 63: a ordem do melhor movimento entre as suas cadeias gêmeas (veja MoveList.getTwinRank), para distinguir cadeias com o mesmo
+ * movimento compactado.
+ */
+public class TranspositionTable {
+
+	// O nome da propriedade do sistema com o tamanho da tabela em megabytes.
+	public static final String SIZE_PROPERTY = "checkers.hash";
+
+	// O tamanho padrão da tabela em megabytes.
+	public static final int DEFAULT_SIZE_MB = 16;
+
+	// O tipo de limite de uma entrada vazia.
+	public static final int BOUND_NONE = 0;
+
+	// A pontuação é exata.
+	public static final int BOUND_EXACT = 1;
+
+	// A pontuação é um limite inferior (a busca foi cortada por beta).
+	public static final int BOUND_LOWER = 2;
+
+	// A pontuação é um limite superior (nenhum movimento superou alfa).
+	public static final int BOUND_UPPER = 3;
+
+	// O número de bytes usados por uma entrada (código e dados).
+	private static final int ENTRY_BYTES = 16;
+
+	// O número de entradas por balde.
+	private static final int BUCKET_SIZE = 2;
+
+	// A máscara do movimento nos dados.
+	private static final long MOVE_MASK = 0xFFFFF;
+
+	// A posição da pontuação nos dados.
+	private static final int SCORE_SHIFT = 20;
+
+	// A posição da profundidade nos dados.
+	private static final int DEPTH_SHIFT = 36;
+
+	// A posição do tipo de limite nos dados.
+	private static final int BOUND_SHIFT = 44;
+
+	// A posição da geração nos dados.
+	private static final int AGE_SHIFT = 46;
+
+	// A posição da ordem do movimento entre as cadeias gêmeas nos dados.
+	private static final int TWIN_SHIFT = 54;
+
+	// A maior ordem entre as cadeias gêmeas que cabe nos dados.
+	private static final int TWIN_MAX = 0x3FF;
+
+	// Os códigos das entradas, já combinados (XOR) com os dados.
+	private final long[] keys;
+
+	// Os dados das entradas.
+	private final long[] data;
+
+	// A máscara usada para obter o balde de um código.
+	private final int bucketMask;
+
+	// A geração da busca atual, usada para preferir substituir entradas antigas.
+	private volatile int age;
+
+	// O número de consultas feitas.
+	private final LongAdder probes = new LongAdder();
+
+	// O número de consultas que encontraram a posição.
+	private final LongAdder hits = new LongAdder();
+
+	// O número de consultas que não encontraram a posição, mas cujo balde estava ocupado por outras posições.
+	private final LongAdder collisions = new LongAdder();
+
+	// O número de entradas escritas.
+	private final LongAdder stores = new LongAdder();
+
+	// O número de entradas escritas por cima de outra posição.
+	private final LongAdder overwrites = new LongAdder();
+
+	// Cria uma tabela com o tamanho definido pela propriedade do sistema checkers.hash, ou com o tamanho padrão.
+	public TranspositionTable() {
+		this(Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE_MB));
+	}
+
+	// Cria uma tabela usando no máximo a quantidade de memória especificada. O número de baldes é arredondado para baixo até uma potência de 2.
+	// megabytes: o tamanho da tabela em megabytes (pelo menos 1).
+	public TranspositionTable(int megabytes) {
+		long entries = Math.max(1, megabytes) * (1L << 20) / ENTRY_BYTES;
+		long buckets = Long.highestOneBit(Math.min(entries / BUCKET_SIZE,
+				Integer.MAX_VALUE / BUCKET_SIZE));
+		this.bucketMask = (int) buckets - 1;
+		this.keys = new long[(int) buckets * BUCKET_SIZE];
+		this.data = new long[(int) buckets * BUCKET_SIZE];
+	}
+
+	// Procura a posição na tabela.
+	// key: o código de Zobrist da posição.
+	// os dados da entrada (veja os métodos estáticos get*) ou 0 se a posição não estiver na tabela.
+	public long probe(long key) {
+		probes.increment();
+		int i = index(key);
+		boolean occupied = false;
+		for (int slot = i; slot < i + BUCKET_SIZE; slot ++) {
+			long d = data[slot];
+			if (d == 0) {
+				continue;
+			}
+			if ((keys[slot] ^ d) == key) {
+				hits.increment();
+				return d;
+			}
+			occupied = true;
+		}
+		if (occupied) {
+			collisions.increment();
+		}
+		return 0;
+	}
+
+	// Guarda o resultado de uma busca na tabela.
+	// key: o código de Zobrist da posição.
+	// depth: a profundidade restante da busca (de 0 a 255).
+	// bound: o tipo de limite da pontuação (BOUND_EXACT, BOUND_LOWER ou BOUND_UPPER).
+	// score: a pontuação (de -32768 a 32767).
+	// move: o melhor movimento compactado, ou MoveList.NO_MOVE.
+	// twin: a ordem do movimento entre as suas cadeias gêmeas (veja MoveList.getTwinRank).
+	public void store(long key, int depth, int bound, int score, int move,
+			int twin) {
+
+		stores.increment();
+		int i = index(key), age = this.age;
+		long d0 = data[i], k0 = keys[i] ^ d0;
+		long d1 = data[i + 1], k1 = keys[i + 1] ^ d1;
+
+		// Mantenha o movimento conhecido se a nova busca não encontrou um
+		if (move == MoveList.NO_MOVE) {
+			if (d0 != 0 && k0 == key) {
+				move = getMove(d0);
+				twin = getTwin(d0);
+			} else if (d1 != 0 && k1 == key) {
+				move = getMove(d1);
+				twin = getTwin(d1);
+			}
+		}
+		long d = encode(depth, bound, score, move, twin, age);
+
+		// A primeira entrada fica com a busca mais profunda ou mais recente
+		if (d0 == 0 || k0 == key || depth >= getDepth(d0) ||
+				getAge(d0) != age) {
+			if (d0 != 0 && k0 != key) {
+
+				// Rebaixe a entrada antiga para a segunda posição
+				if (d1 != 0 && k1 != key) {
+					overwrites.increment();
+				}
+				write(i + 1, k0, d0);
+			}
+			write(i, key, d);
+			return;
+		}
+
+		// Caso contrário, substitua sempre a segunda
+		if (d1 != 0 && k1 != key) {
+			overwrites.increment();
+		}
+		write(i + 1, key, d);
+	}
+
+	// Apaga todas as entradas e estatísticas da tabela.
+	public void clear() {
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+		this.age = 0;
+		resetStats();
+	}
+
+	// Indica o início de uma nova busca, para que as entradas das buscas anteriores sejam substituídas primeiro.
+	public void newSearch() {
+		this.age = (age + 1) & 0xFF;
+	}
+
+	// Zera os contadores de consultas, acertos, colisões e substituições.
+	public void resetStats() {
+		probes.reset();
+		hits.reset();
+		collisions.reset();
+		stores.reset();
+		overwrites.reset();
+	}
+
+	// Obtém o número de entradas que a tabela pode guardar.
+	public int getCapacity() {
+		return data.length;
+	}
+
+	// Obtém o tamanho da tabela em megabytes.
+	public long getSizeMB() {
+		return ((long) data.length * ENTRY_BYTES) >> 20;
+	}
+
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getCollisions() {
+		return collisions.sum();
+	}
+
+	public long getStores() {
+		return stores.sum();
+	}
+
+	public long getOverwrites() {
+		return overwrites.sum();
+	}
+
+	// A fração das consultas que encontraram a posição.
+	public double getHitRate() {
+		long n = probes.sum();
+		return n == 0? 0 : (double) hits.sum() / n;
+	}
+
+	// A fração das consultas que encontraram o balde ocupado por outras posições.
+	public double getCollisionRate() {
+		long n = probes.sum();
+		return n == 0? 0 : (double) collisions.sum() / n;
+	}
+
+	// A fração das escritas que substituíram uma outra posição.
+	public double getOverwriteRate() {
+		long n = stores.sum();
+		return n == 0? 0 : (double) overwrites.sum() / n;
+	}
+
+	// Obtém o movimento compactado guardado nos dados de uma entrada.
+	public static int getMove(long data) {
+		return (int) (data & MOVE_MASK);
+	}
+
+	// Obtém a ordem do movimento guardado entre as suas cadeias gêmeas (veja MoveList.getTwinRank).
+	public static int getTwin(long data) {
+		return (int) (data >>> TWIN_SHIFT) & TWIN_MAX;
+	}
+
+	// Obtém a pontuação guardada nos dados de uma entrada.
+	public static int getScore(long data) {
+		return (short) (data >>> SCORE_SHIFT);
+	}
+
+	// Obtém a profundidade guardada nos dados de uma entrada.
+	public static int getDepth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+	}
+
+	// Obtém o tipo de limite guardado nos dados de uma entrada.
+	public static int getBound(long data) {
+		return (int) (data >>> BOUND_SHIFT) & 0x3;
+	}
+
+	// Obtém a geração guardada nos dados de uma entrada.
+	private static int getAge(long data) {
+		return (int) (data >>> AGE_SHIFT) & 0xFF;
+	}
+
+	// Compacta os dados de uma entrada.
+	private static long encode(int depth, int bound, int score, int move,
+			int twin, int age) {
+		return (move & MOVE_MASK)
+				| ((score & 0xFFFFL) << SCORE_SHIFT)
+				| ((long) (Math.max(0, Math.min(depth, 0xFF))) << DEPTH_SHIFT)
+				| ((long) (bound & 0x3) << BOUND_SHIFT)
+				| ((long) (age & 0xFF) << AGE_SHIFT)
+				| ((long) Math.min(twin, TWIN_MAX) << TWIN_SHIFT);
+	}
+
+	// Obtém o índice da primeira entrada do balde de um código.
+	private int index(long key) {
+		return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE;
+	}
+
+	// Escreve uma entrada, guardando o código combinado com os dados.
+	private void write(int slot, long key, long d) {
+		this.data[slot] = d;
+		this.keys[slot] = key ^ d;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[sizeMB=" + getSizeMB()
+				+ ", capacity=" + getCapacity() + ", probes=" + getProbes()
+				+ ", hitRate=" + getHitRate() + ", collisionRate="
+				+ getCollisionRate() + ", overwriteRate=" + getOverwriteRate()
+				+ "]";
+	}
+}
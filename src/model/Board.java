@@ -1,5 +1,5 @@
 /* Descrição: Esta classe implementa um tabuleiro de damas 8x8. De acordo com as regras padrão, uma peça só pode se mover em ladrilhos pretos, o que 
- * significa que existem apenas 32 ladrilhos disponíveis. Ele usa três inteiros para representar o tabuleiro, dando 3 bits para cada ladrilho preto.
+ * significa que existem apenas 32 ladrilhos disponíveis. Ele usa três inteiros como máscaras de bits (peças pretas, peças brancas e Damas), dando 1 bit de cada máscara para cada ladrilho preto.
  */
 
 package model;
@@ -10,8 +10,8 @@ import java.util.List;
 
 /* A classe representa um estado de jogo para damas. Um tabuleiro de damas padrão tem 8 x 8 (64) ladrilhos, alternando branco/preto. 
  * Damas só são permitidas em ladrilhos pretos e, portanto, só podem se mover na diagonal. A placa é otimizada para usar o mínimo de espaço de 
- * memória possível e usa apenas 3 números inteiros para representar o estado da placa (3 bits para cada uma das 32 peças). Isso torna rápido e 
- * eficiente o estado da placa;
+ * memória possível e usa apenas 3 números inteiros para representar o estado da placa (uma máscara de 32 bits para as peças pretas, uma para as 
+ * brancas e uma para as Damas). Isso torna rápido e eficiente o estado da placa e permite consultar todas as peças de um tipo de uma só vez;
  */
   
 // Essa classe usa números inteiros para representar o estado de cada bloco e usa especificamente constantes para IDs;
@@ -36,8 +36,14 @@ public class Board {
 	//A ID de uma peça branca que também é uma Dama.
 	public static final int WHITE_KING = 4 * 1 + 2 * 0 + 1 * 1;
 
-	//O estado atual do quadro, representado como três números inteiros.
-	private int[] state;
+	// A máscara das peças pretas (comuns e Damas). O bit i corresponde ao ladrilho preto de índice i.
+	private int black;
+	
+	// A máscara das peças brancas (comuns e Damas).
+	private int white;
+	
+	// A máscara das Damas de ambos os jogadores.
+	private int kings;
 	
 	//Constrói um novo tabuleiro de jogo de damas, pré-preenchido com um novo estado de jogo.
 	public Board() {
@@ -47,19 +53,19 @@ public class Board {
 	//Cria uma cópia exata do tabuleiro. Quaisquer alterações feitas na cópia não afetarão o objeto atual.
 	public Board copy() {
 		Board copy = new Board();
-		copy.state = state.clone();
+		copy.black = black;
+		copy.white = white;
+		copy.kings = kings;
 		return copy;
 	}
 	
 	//Redefine o tabuleiro de damas para o estado original do jogo com damas pretas na parte superior e brancas na parte inferior. Existem 12 damas pretas e 12 damas brancas.
 	public void reset() {
 
-		// Redefinir o estado
-		this.state = new int[3];
-		for (int i = 0; i < 12; i ++) {
-			set(i, BLACK_CHECKER);
-			set(31 - i, WHITE_CHECKER);
-		}
+		// Redefinir o estado (índices 0 a 11 pretos, 20 a 31 brancos)
+		this.black = 0x00000FFF;
+		this.white = 0xFFF00000;
+		this.kings = 0;
 	}
 	
 	//Pesquisa no tabuleiro de damas e encontra blocos pretos que correspondem ao ID especificado.
@@ -69,15 +75,42 @@ public class Board {
 		
 		// Encontre todos os ladrilhos pretos com IDs correspondentes
 		List<Point> points = new ArrayList<>();
-		for (int i = 0; i < 32; i ++) {
-			if (get(i) == id) {
-				points.add(toPoint(i));
-			}
+		int mask = getMask(id);
+		while (mask != 0) {
+			points.add(toPoint(Integer.numberOfTrailingZeros(mask)));
+			mask &= mask - 1;
 		}
 		
 		return points;
 	}
 	
+	// Obtém a máscara de bits dos ladrilhos pretos que correspondem ao ID especificado.
+	// id: o ID a ser pesquisado.
+	// a máscara com o bit i definido se e somente se o ladrilho de índice i tiver o ID especificado.
+	public int getMask(int id) {
+		switch (id) {
+		case EMPTY:
+			return ~(black | white);
+		case BLACK_CHECKER:
+			return black & ~kings;
+		case WHITE_CHECKER:
+			return white & ~kings;
+		case BLACK_KING:
+			return black & kings;
+		case WHITE_KING:
+			return white & kings;
+		default:
+			return 0;
+		}
+	}
+	
+	// Conta o número de ladrilhos pretos com o ID especificado.
+	// id: o ID a ser contado.
+	// o número de ladrilhos com o ID.
+	public int count(int id) {
+		return Integer.bitCount(getMask(id));
+	}
+	
 	// Define o ID de um ladrilho preto no tabuleiro no local especificado. Se o local não for um bloco preto, nada será atualizado. Se o ID for menor que 0, o tabuleiro no local será definido como vazio
 	// x: a coordenada x no quadro (de 0 a 7 inclusive).
 	// y: a coordenada y no quadro (de 0 a 7 inclusive).
@@ -96,15 +129,20 @@ public class Board {
 			return;
 		}
 		
-		// ID inválido, então apenas defina como VAZIO
-		if (id < 0) {
-			id = EMPTY;
-		}
+		// Limpe o ladrilho (um ID inválido o deixa VAZIO)
+		int bit = 1 << index;
+		this.black &= ~bit;
+		this.white &= ~bit;
+		this.kings &= ~bit;
 		
 		// Definir os bits de estado
-		for (int i = 0; i < state.length; i ++) {
-			boolean set = ((1 << (state.length - i - 1)) & id) != 0;
-			this.state[i] = setBit(state[i], index, set);
+		if (id == BLACK_CHECKER || id == BLACK_KING) {
+			this.black |= bit;
+		} else if (id == WHITE_CHECKER || id == WHITE_KING) {
+			this.white |= bit;
+		}
+		if (id == BLACK_KING || id == WHITE_KING) {
+			this.kings |= bit;
 		}
 	}
 	
@@ -125,10 +163,57 @@ public class Board {
 		if (!isValidIndex(index)) {
 			return INVALID;
 		}
-		return getBit(state[0], index) * 4 + getBit(state[1], index) * 2
-				+ getBit(state[2], index);
+		int bit = 1 << index;
+		if ((black & bit) != 0) {
+			return (kings & bit) != 0? BLACK_KING : BLACK_CHECKER;
+		} else if ((white & bit) != 0) {
+			return (kings & bit) != 0? WHITE_KING : WHITE_CHECKER;
+		}
+		return EMPTY;
+	}
+	
+	// Define o tabuleiro inteiro a partir das máscaras de bits. Um ladrilho presente nas duas máscaras de cor fica preto, e as Damas fora das duas são ignoradas.
+	// black: a máscara das peças pretas.
+	// white: a máscara das peças brancas.
+	// kings: a máscara das Damas.
+	public void setMasks(int black, int white, int kings) {
+		this.black = black;
+		this.white = white & ~black;
+		this.kings = kings & (black | white);
+	}
+	
+	// Obtém a máscara de bits das peças pretas (comuns e Damas), com o bit i correspondendo ao ladrilho preto de índice i.
+	public int getBlack() {
+		return black;
+	}
+
+	// Obtém a máscara de bits das peças brancas (comuns e Damas), com o bit i correspondendo ao ladrilho preto de índice i.
+	public int getWhite() {
+		return white;
+	}
+
+	// Obtém a máscara de bits das Damas de ambos os jogadores, com o bit i correspondendo ao ladrilho preto de índice i.
+	public int getKings() {
+		return kings;
 	}
 	
+	// Obtém a máscara de bits dos ladrilhos pretos vazios.
+	public int getEmpty() {
+		return ~(black | white);
+	}
+	
+	// Obtém a máscara de bits das peças de um jogador.
+	// isBlack: a bandeira indicando se as peças pretas devem ser observadas.
+	public int getPieces(boolean isBlack) {
+		return isBlack? black : white;
+	}
+	
+	// Conta as peças (comuns e Damas) de um jogador.
+	// isBlack: a bandeira indicando se as peças pretas devem ser contadas.
+	public int getPieceCount(boolean isBlack) {
+		return Integer.bitCount(isBlack? black : white);
+	}
+
 	// Converte um índice de bloco preto (0 a 31 inclusive) em um ponto (x, y), de modo que o índice 0 seja (1, 0), o índice 1 seja (3, 0), ... o índice 31 seja (7, 7 ).
 	// index: o índice do ladrilho preto a ser convertido em um ponto.
 	// o ponto (x, y) correspondente ao índice do ladrilho preto ou o ponto (-1, -1) se o índice não estiver entre 0 - 31 (inclusive).
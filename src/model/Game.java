@@ -3,13 +3,22 @@
 package model;
 
 import java.awt.Point;
-import java.util.List;
+import java.util.Arrays;
 
+import logic.Evaluator;
 import logic.MoveGenerator;
-import logic.MoveLogic;
 
 // A classe representa um jogo de damas e garante que todas as jogadas feitas sejam válidas de acordo com as regras das damas.
 public class Game {
+	
+	// A máscara das Damas capturadas nas informações para desfazer um movimento.
+	private static final long UNDO_KINGS_MASK = 0xFFFFFFFFL;
+	
+	// O bit que guarda a vez do jogador 1 nas informações para desfazer um movimento.
+	private static final long UNDO_P1_TURN = 1L << 32;
+	
+	// A posição do índice do salto (mais 1) nas informações para desfazer um movimento.
+	private static final int UNDO_SKIP_SHIFT = 33;
 
 	// O estado atual do tabuleiro de damas.
 	private Board board;
@@ -20,6 +29,39 @@ public class Game {
 	// O índice do último salto, para permitir vários saltos em uma curva.
 	private int skipIndex;
 	
+	// Os movimentos compactados feitos nesta instância, do mais antigo ao mais recente, para que possam ser desfeitos.
+	private int[] history = new int[MoveList.DEFAULT_CAPACITY];
+	
+	// A máscara das peças capturadas por cada movimento do histórico.
+	private int[] captures = new int[MoveList.DEFAULT_CAPACITY];
+	
+	// As informações para desfazer cada movimento do histórico (Damas capturadas, vez e índice do salto anteriores).
+	private long[] undo = new long[MoveList.DEFAULT_CAPACITY];
+	
+	// O número de movimentos no histórico.
+	private int historySize;
+	
+	// O código de Zobrist da posição atual, atualizado a cada alteração do tabuleiro, da vez ou do salto.
+	private long hash;
+	
+	// O material e a posição das peças (veja Evaluator.getPieceValue) do ponto de vista das pretas, atualizado junto com o tabuleiro.
+	private int score;
+	
+	// Os movimentos legais (cadeias de saltos completas) da posição de código legalHash, calculados apenas quando consultados.
+	private final MoveList legalMoves = new MoveList();
+	
+	// As peças do jogador da vez que podem dar o próximo passo, na posição de código legalHash.
+	private int movable;
+	
+	// Os destinos do próximo passo (um movimento simples ou um único salto) de cada peça, na posição de código legalHash.
+	private final int[] targets = new int[32];
+	
+	// O código da posição dos movimentos legais guardados.
+	private long legalHash;
+	
+	// A bandeira indicando se os movimentos legais já foram calculados para alguma posição.
+	private boolean hasLegalCache;
+	
 	public Game() {
 		restart();
 	}
@@ -32,16 +74,14 @@ public class Game {
 		this.board = (board == null)? new Board() : board;
 		this.isP1Turn = isP1Turn;
 		this.skipIndex = skipIndex;
+		this.hash = Zobrist.hash(this.board, isP1Turn, skipIndex);
+		this.score = Evaluator.getPositionalScore(this.board);
 	}
 	
-	// Cria uma cópia deste jogo de forma que quaisquer modificações feitas em um não sejam feitas no outro.
+	// Cria uma cópia deste jogo de forma que quaisquer modificações feitas em um não sejam feitas no outro. O histórico de movimentos não é copiado.
 	// devolva uma cópia exata deste jogo.
 	public Game copy() {
-		Game g = new Game();
-		g.board = board.copy();
-		g.isP1Turn = isP1Turn;
-		g.skipIndex = skipIndex;
-		return g;
+		return new Game(board.copy(), isP1Turn, skipIndex);
 	}
 	
 	// Redefine o jogo de damas para o estado inicial.
@@ -49,6 +89,9 @@ public class Game {
 		this.board = new Board();
 		this.isP1Turn = true;
 		this.skipIndex = -1;
+		this.historySize = 0;
+		this.hash = Zobrist.hash(board, isP1Turn, skipIndex);
+		this.score = Evaluator.getPositionalScore(board);
 	}
 	
 	// Tenta fazer um movimento do ponto inicial ao ponto final.
@@ -71,80 +114,213 @@ public class Game {
 	public boolean move(int startIndex, int endIndex) {
 		
 		// Valide a mudança
-		if (!MoveLogic.isValidMove(this, startIndex, endIndex)) {
+		if (!isLegalStep(startIndex, endIndex)) {
 			return false;
 		}
 		
 		// Faça o movimento
-		Point middle = Board.middle(startIndex, endIndex);
-		int midIndex = Board.toIndex(middle);
-		this.board.set(endIndex, board.get(startIndex));
-		this.board.set(midIndex, Board.EMPTY);
-		this.board.set(startIndex, Board.EMPTY);
+		int midIndex = Board.toIndex(Board.middle(startIndex, endIndex));
+		int id = board.get(startIndex);
+		int endY = endIndex / 4;
+		boolean promotion = (endY == 0 && id == Board.WHITE_CHECKER) ||
+				(endY == 7 && id == Board.BLACK_CHECKER);
+		makeMove(MoveList.encode(startIndex, endIndex, midIndex, promotion,
+				Board.isValidIndex(midIndex)? 1 : 0));
+		
+		return true;
+	}
+	
+	// Faz um movimento compactado (veja MoveList) de no máximo um salto, sem validá-lo, e guarda o necessário para desfazê-lo com unmakeMove. Se
+	// a peça ainda puder saltar, o turno continua com o mesmo jogador. O movimento deve ser legal no estado atual, caso contrário o estado do
+	// jogo fica inconsistente.
+	// move: o movimento compactado a ser feito.
+	public void makeMove(int move) {
+		int midIndex = MoveList.getCapturedIndex(move);
+		makeMove(move, (midIndex < 0)? 0 : 1 << midIndex);
+	}
+	
+	// Faz um movimento compactado, que pode ser uma cadeia de saltos completa (veja MoveGenerator.generate), sem validá-lo, e guarda o necessário
+	// para desfazê-lo com unmakeMove. O movimento deve ser legal no estado atual, caso contrário o estado do jogo fica inconsistente.
+	// move: o movimento compactado a ser feito.
+	// captures: a máscara das peças capturadas pelo movimento (veja MoveList.getCaptures).
+	public void makeMove(int move, int captures) {
+		
+		// Guarde as informações para desfazer
+		int startIndex = MoveList.getStartIndex(move);
+		int endIndex = MoveList.getEndIndex(move);
+		if (historySize == history.length) {
+			this.history = Arrays.copyOf(history, historySize * 2);
+			this.captures = Arrays.copyOf(this.captures, historySize * 2);
+			this.undo = Arrays.copyOf(undo, historySize * 2);
+		}
+		this.history[historySize] = move;
+		this.captures[historySize] = captures;
+		this.undo[historySize] = (captures & board.getKings() & UNDO_KINGS_MASK)
+				| (isP1Turn? UNDO_P1_TURN : 0)
+				| ((long) (skipIndex + 1) << UNDO_SKIP_SHIFT);
+		this.historySize ++;
+		
+		// Faça o movimento
+		int id = board.get(startIndex);
+		put(startIndex, Board.EMPTY);
+		for (int c = captures; c != 0; c &= c - 1) {
+			put(Integer.numberOfTrailingZeros(c), Board.EMPTY);
+		}
 		
 		// Faça da peça uma Dama, se necessário
-		Point end = Board.toPoint(endIndex);
-		int id = board.get(endIndex);
-		boolean switchTurn = false;
-		if (end.y == 0 && id == Board.WHITE_CHECKER) {
-			this.board.set(endIndex, Board.WHITE_KING);
-			switchTurn = true;
-		} else if (end.y == 7 && id == Board.BLACK_CHECKER) {
-			this.board.set(endIndex, Board.BLACK_KING);
-			switchTurn = true;
+		if (MoveList.isPromotion(move)) {
+			id = (id == Board.BLACK_CHECKER)? Board.BLACK_KING : Board.WHITE_KING;
 		}
+		put(endIndex, id);
 		
 		// Verifique se a curva deve mudar (ou seja, sem mais saltos)
-		boolean midValid = Board.isValidIndex(midIndex);
-		if (midValid) {
-			this.skipIndex = endIndex;
+		if (captures != 0 && !MoveList.isPromotion(move) &&
+				MoveGenerator.getSkipTargets(board, endIndex) != 0) {
+			setState(isP1Turn, endIndex);
+		} else {
+			setState(!isP1Turn, -1);
 		}
-		if (!midValid || MoveGenerator.getSkips(
-				board.copy(), endIndex).isEmpty()) {
-			switchTurn = true;
+	}
+	
+	// Desfaz o último movimento feito nesta instância (com move ou makeMove), restaurando as peças capturadas, a promoção, a vez e o índice do salto.
+	// verdadeiro se e somente se havia um movimento para desfazer.
+	public boolean unmakeMove() {
+		
+		// Nada para desfazer
+		if (historySize == 0) {
+			return false;
 		}
-		if (switchTurn) {
-			this.isP1Turn = !isP1Turn;
-			this.skipIndex = -1;
+		this.historySize --;
+		int move = history[historySize];
+		long info = undo[historySize];
+		
+		// Volte a peça para o início
+		int startIndex = MoveList.getStartIndex(move);
+		int endIndex = MoveList.getEndIndex(move);
+		int id = board.get(endIndex);
+		if (MoveList.isPromotion(move)) {
+			id = (id == Board.BLACK_KING)? Board.BLACK_CHECKER : Board.WHITE_CHECKER;
+		}
+		put(endIndex, Board.EMPTY);
+		put(startIndex, id);
+		
+		// Devolva as peças capturadas, que são do adversário de quem moveu
+		boolean wasBlack = (id == Board.BLACK_CHECKER || id == Board.BLACK_KING);
+		int kings = (int) (info & UNDO_KINGS_MASK);
+		for (int c = captures[historySize]; c != 0; c &= c - 1) {
+			int index = Integer.numberOfTrailingZeros(c);
+			boolean isKing = (kings & (1 << index)) != 0;
+			put(index, wasBlack? (isKing? Board.WHITE_KING : Board.WHITE_CHECKER)
+					: (isKing? Board.BLACK_KING : Board.BLACK_CHECKER));
 		}
 		
+		// Restaure a vez e o salto
+		setState((info & UNDO_P1_TURN) != 0, (int) (info >>> UNDO_SKIP_SHIFT) - 1);
+		
 		return true;
 	}
 	
+	// Define o ID de um ladrilho preto e atualiza o código e a pontuação da posição.
+	// index: o índice do ladrilho preto.
+	// id: o novo ID.
+	private void put(int index, int id) {
+		int old = board.get(index);
+		this.hash ^= Zobrist.piece(old, index) ^ Zobrist.piece(id, index);
+		this.score += Evaluator.getPieceValue(id, index)
+				- Evaluator.getPieceValue(old, index);
+		this.board.set(index, id);
+	}
+	
+	// Define a vez e o salto pendente e atualiza o código da posição.
+	// isP1Turn: a bandeira indicando se é a vez do jogador 1.
+	// skipIndex: o índice do último salto neste turno, ou -1 se não houver.
+	private void setState(boolean isP1Turn, int skipIndex) {
+		this.hash ^= Zobrist.state(this.isP1Turn, this.skipIndex)
+				^ Zobrist.state(isP1Turn, skipIndex);
+		this.isP1Turn = isP1Turn;
+		this.skipIndex = skipIndex;
+	}
+	
 	// Obtém uma cópia do estado atual do quadro.
 	// uma não referência ao estado atual do tabuleiro do jogo.
 	public Board getBoard() {
 		return board.copy();
 	}
 	
+	// Obtém o próprio tabuleiro do jogo, sem copiá-lo. O tabuleiro retornado muda junto com o jogo e não deve ser modificado por quem o chama.
+	// a referência ao estado atual do tabuleiro do jogo.
+	public Board getBoardView() {
+		return board;
+	}
+	
 	// Determina se o jogo acabou. O jogo termina se um ou ambos os jogadores não puderem fazer um único movimento durante sua vez.
 	// retorna verdadeiro se o jogo acabou.
 	public boolean isGameOver() {
 
 		// Certifique-se de que haja pelo menos um de cada verificador
-		List<Point> black = board.find(Board.BLACK_CHECKER);
-		black.addAll(board.find(Board.BLACK_KING));
-		if (black.isEmpty()) {
-			return true;
-		}
-		List<Point> white = board.find(Board.WHITE_CHECKER);
-		white.addAll(board.find(Board.WHITE_KING));
-		if (white.isEmpty()) {
+		int black = board.getBlack(), white = board.getWhite();
+		if (black == 0 || white == 0) {
 			return true;
 		}
 		
-		// Verifique se o jogador atual pode se mover
-		List<Point> test = isP1Turn? black : white;
-		for (Point p : test) {
-			int i = Board.toIndex(p);
-			if (!MoveGenerator.getMoves(board, i).isEmpty() ||
-					!MoveGenerator.getSkips(board, i).isEmpty()) {
-				return false;
-			}
+		// Verifique se o jogador atual pode se mover (em um estado válido, a peça de um salto pendente sempre pode continuar saltando, então
+		// o salto pendente não precisa restringir o teste)
+		return !MoveGenerator.hasLegalMove(board, isP1Turn, -1);
+	}
+	
+	// Obtém os movimentos legais da posição atual (cada salto múltiplo como um único movimento, veja MoveGenerator.generate). A lista é
+	// calculada uma única vez por posição e reutilizada enquanto o código da posição não mudar; ela não deve ser modificada por quem a chama.
+	// a lista dos movimentos legais.
+	public MoveList getLegalMoves() {
+		updateLegalMoves();
+		return legalMoves;
+	}
+	
+	// Obtém a máscara das peças do jogador da vez que podem se mover agora (com os saltos obrigatórios e o salto pendente considerados).
+	public int getMovablePieces() {
+		updateLegalMoves();
+		return movable;
+	}
+	
+	// Obtém a máscara dos destinos do próximo passo de uma peça (um movimento simples ou um único salto de uma cadeia).
+	// startIndex: o índice da peça.
+	public int getLegalTargets(int startIndex) {
+		updateLegalMoves();
+		return Board.isValidIndex(startIndex)? targets[startIndex] : 0;
+	}
+	
+	// Determina se o próximo passo de uma peça (um movimento simples ou um único salto, como em move) é legal, de acordo com as regras em
+	// MoveLogic, consultando os movimentos guardados em vez de examinar o tabuleiro.
+	// startIndex: o índice inicial do passo.
+	// endIndex: o índice final do passo.
+	public boolean isLegalStep(int startIndex, int endIndex) {
+		return Board.isValidIndex(endIndex)
+				&& (getLegalTargets(startIndex) & (1 << endIndex)) != 0;
+	}
+	
+	// Calcula os movimentos legais, as peças que podem se mover e os seus destinos, se a posição mudou desde o último cálculo.
+	private void updateLegalMoves() {
+		
+		// A posição não mudou
+		if (hasLegalCache && legalHash == hash) {
+			return;
 		}
+		MoveGenerator.generate(board, isP1Turn, skipIndex, legalMoves);
 		
-		// Sem movimentos
-		return true;
+		// Se houver saltos, apenas eles são permitidos, e só a peça do salto pendente pode continuar
+		int jumpers = MoveGenerator.getJumpers(board, isP1Turn);
+		this.movable = (jumpers != 0)? jumpers : MoveGenerator.getMovers(board, isP1Turn);
+		if (Board.isValidIndex(skipIndex)) {
+			this.movable &= 1 << skipIndex;
+		}
+		Arrays.fill(targets, 0);
+		for (int m = movable; m != 0; m &= m - 1) {
+			int i = Integer.numberOfTrailingZeros(m);
+			this.targets[i] = (jumpers != 0)? MoveGenerator.getSkipTargets(board, i)
+					: MoveGenerator.getMoveTargets(board, i);
+		}
+		this.legalHash = hash;
+		this.hasLegalCache = true;
 	}
 	
 	public boolean isP1Turn() {
@@ -152,28 +328,38 @@ public class Game {
 	}
 	
 	public void setP1Turn(boolean isP1Turn) {
-		this.isP1Turn = isP1Turn;
+		setState(isP1Turn, skipIndex);
 	}
 	
 	public int getSkipIndex() {
 		return skipIndex;
 	}
 	
+	// Obtém o código de Zobrist de 64 bits que identifica a posição atual (tabuleiro, vez e salto pendente). Posições iguais têm sempre o mesmo código.
+	public long getHash() {
+		return hash;
+	}
+	
+	// Obtém a soma do material e da posição das peças do ponto de vista das pretas, mantida incrementalmente a cada movimento.
+	public int getScore() {
+		return score;
+	}
+	
 	// Obtém o estado atual do jogo como uma string de dados que pode ser analisada
 	// retorna uma string representando o estado atual do jogo.
 	public String getGameState() {
 		
 		// Adicione o tabuleiro de jogo
-		String state = "";
+		StringBuilder state = new StringBuilder(35);
 		for (int i = 0; i < 32; i ++) {
-			state += "" + board.get(i);
+			state.append((char) ('0' + board.get(i)));
 		}
 		
 		// Adicione as outras informações
-		state += (isP1Turn? "1" : "0");
-		state += skipIndex;
+		state.append(isP1Turn? '1' : '0');
+		state.append(skipIndex);
 		
-		return state;
+		return state.toString();
 	}
 	
 	// Analisa uma string representando um estado do jogo que foi gerado
@@ -190,10 +376,10 @@ public class Game {
 		// Atualize o tabuleiro
 		int n = state.length();
 		for (int i = 0; i < 32 && i < n; i ++) {
-			try {
-				int id = Integer.parseInt("" + state.charAt(i));
+			int id = Character.digit(state.charAt(i), 10);
+			if (id >= 0) {
 				this.board.set(i, id);
-			} catch (NumberFormatException e) {}
+			}
 		}
 		
 		// Atualize as outras informações
@@ -201,11 +387,49 @@ public class Game {
 			this.isP1Turn = (state.charAt(32) == '1');
 		}
 		if (n > 33) {
-			try {
-				this.skipIndex = Integer.parseInt(state.substring(33));
-			} catch (NumberFormatException e) {
-				this.skipIndex = -1;
+			this.skipIndex = parseSkipIndex(state);
+		}
+		this.hash = Zobrist.hash(board, isP1Turn, skipIndex);
+		this.score = Evaluator.getPositionalScore(board);
+	}
+	
+	// Lê o índice do salto no fim de uma string de estado (a partir do caractere 33), sem criar uma substring.
+	// o índice, ou -1 se ele não for um número válido.
+	private static int parseSkipIndex(String state) {
+		int n = state.length(), i = 33, value = 0;
+		boolean negative = (state.charAt(i) == '-');
+		if (negative || state.charAt(i) == '+') {
+			i ++;
+		}
+		if (i == n || n - i > 9) {
+			return -1;
+		}
+		for (; i < n; i ++) {
+			int digit = Character.digit(state.charAt(i), 10);
+			if (digit < 0) {
+				return -1;
 			}
+			value = value * 10 + digit;
 		}
+		return negative? -value : value;
+	}
+	
+	/*
+	 * Define a posição do jogo a partir das máscaras do tabuleiro (veja Board), sem criar objetos. O histórico de movimentos é descartado.
+	 *
+	 * black: a máscara das peças pretas.
+	 * white: a máscara das peças brancas.
+	 * kings: a máscara das Damas.
+	 * isP1Turn: a bandeira indicando se é a vez do jogador 1.
+	 * skipIndex: o índice do salto pendente, ou -1.
+	 */
+	public void setPosition(int black, int white, int kings, boolean isP1Turn,
+			int skipIndex) {
+		this.board.setMasks(black, white, kings);
+		this.isP1Turn = isP1Turn;
+		this.skipIndex = skipIndex;
+		this.historySize = 0;
+		this.hash = Zobrist.hash(board, isP1Turn, skipIndex);
+		this.score = Evaluator.getPositionalScore(board);
 	}
 }
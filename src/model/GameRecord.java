@@ -0,0 +1,180 @@
+// Descrição: Esta classe representa o registro de uma partida (etiquetas, posição inicial, movimentos e resultado), lido ou escrito em PDN.
+
+package model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* A classe guarda uma partida completa na forma usada por PdnReader e PdnWriter: as etiquetas PDN (por exemplo Event, Black, White e Date), a
+ * posição inicial codificada por PositionCodec, os movimentos compactados (veja MoveList) com as peças capturadas e o caminho de cada um, e o
+ * resultado. Cada movimento é um turno inteiro, incluindo uma cadeia de saltos completa.
+ *
+ * Um registro pode ser reutilizado para ler várias partidas (veja clear), para que a leitura de muitas partidas não crie um registro por
+ * partida.
+ */
+public class GameRecord {
+
+	// Os resultados possíveis de uma partida.
+	public static final String BLACK_WIN = "1-0", WHITE_WIN = "0-1",
+			DRAW = "1/2-1/2", UNKNOWN = "*";
+
+	// A posição inicial padrão codificada.
+	private static final long[] STANDARD_START = new long[PositionCodec.LONGS];
+
+	static {
+		PositionCodec.encode(new Game(), STANDARD_START, 0);
+	}
+
+	// As etiquetas da partida, na ordem em que foram adicionadas (sem FEN, que é guardada como a posição inicial).
+	private final Map<String, String> tags = new LinkedHashMap<>();
+
+	// A posição inicial codificada.
+	private final long[] start = new long[PositionCodec.LONGS];
+
+	// Os movimentos compactados.
+	private int[] moves = new int[MoveList.DEFAULT_CAPACITY];
+
+	// A máscara das peças capturadas por cada movimento.
+	private int[] captures = new int[MoveList.DEFAULT_CAPACITY];
+
+	// O caminho de cada movimento (veja MoveList).
+	private long[] paths = new long[MoveList.DEFAULT_CAPACITY];
+
+	// O número de movimentos.
+	private int size;
+
+	// O resultado da partida.
+	private String result;
+
+	public GameRecord() {
+		clear();
+	}
+
+	// Remove as etiquetas e os movimentos e volta à posição inicial padrão, sem liberar a memória alocada.
+	public void clear() {
+		this.tags.clear();
+		System.arraycopy(STANDARD_START, 0, start, 0, start.length);
+		this.size = 0;
+		this.result = UNKNOWN;
+	}
+
+	// Obtém o valor de uma etiqueta, ou null se ela não existir.
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	// Define o valor de uma etiqueta (null remove a etiqueta).
+	public void setTag(String name, String value) {
+		if (value == null) {
+			tags.remove(name);
+		} else {
+			tags.put(name, value);
+		}
+	}
+
+	// Obtém as etiquetas, na ordem em que foram adicionadas. O mapa retornado é o próprio mapa do registro.
+	public Map<String, String> getTags() {
+		return tags;
+	}
+
+	// Cria um jogo na posição inicial da partida.
+	public Game getStartGame() {
+		Game game = new Game();
+		loadStart(game);
+		return game;
+	}
+
+	// Coloca um jogo na posição inicial da partida, sem criar objetos.
+	void loadStart(Game game) {
+		PositionCodec.decode(start, 0, game);
+	}
+
+	// Define a posição inicial da partida a partir do estado atual de um jogo. Os movimentos já adicionados são removidos.
+	public void setStart(Game game) {
+		PositionCodec.encode(game, start, 0);
+		this.size = 0;
+	}
+
+	// Determina se a partida começa da posição inicial padrão.
+	public boolean isStandardStart() {
+		return Arrays.equals(start, STANDARD_START);
+	}
+
+	/*
+	 * Adiciona um movimento ao final da partida.
+	 *
+	 * move: o movimento compactado.
+	 * captures: a máscara das peças capturadas pelo movimento.
+	 * path: o caminho do movimento.
+	 */
+	public void addMove(int move, int captures, long path) {
+		if (size == moves.length) {
+			int n = size * 2;
+			this.moves = Arrays.copyOf(moves, n);
+			this.captures = Arrays.copyOf(this.captures, n);
+			this.paths = Arrays.copyOf(paths, n);
+		}
+		this.moves[size] = move;
+		this.captures[size] = captures;
+		this.paths[size] = path;
+		this.size ++;
+	}
+
+	// Adiciona o movimento de uma lista ao final da partida.
+	// list: a lista de movimentos.
+	// i: a posição do movimento na lista.
+	public void addMove(MoveList list, int i) {
+		addMove(list.get(i), list.getCaptures(i), list.getPath(i));
+	}
+
+	// Obtém o número de movimentos da partida.
+	public int getMoveCount() {
+		return size;
+	}
+
+	// Obtém o movimento compactado de um turno.
+	// i: o número do turno (de 0 a getMoveCount() - 1 inclusive).
+	public int getMove(int i) {
+		return moves[i];
+	}
+
+	// Obtém a máscara das peças capturadas pelo movimento de um turno.
+	public int getCaptures(int i) {
+		return captures[i];
+	}
+
+	// Obtém o caminho do movimento de um turno.
+	public long getPath(int i) {
+		return paths[i];
+	}
+
+	// Cria o objeto Move usado pela interface a partir do movimento de um turno.
+	public Move toMove(int i) {
+		return MoveList.toMove(moves[i]);
+	}
+
+	// Cria um jogo com todos os movimentos da partida feitos, que podem ser desfeitos com Game.unmakeMove.
+	public Game toGame() {
+		Game game = getStartGame();
+		for (int i = 0; i < size; i ++) {
+			game.makeMove(moves[i], captures[i]);
+		}
+		return game;
+	}
+
+	public String getResult() {
+		return result;
+	}
+
+	// Define o resultado da partida (BLACK_WIN, WHITE_WIN, DRAW ou UNKNOWN).
+	public void setResult(String result) {
+		this.result = (result == null)? UNKNOWN : result;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[tags=" + tags + ", moves=" + size
+				+ ", result=" + result + "]";
+	}
+}
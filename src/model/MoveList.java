@@ -0,0 +1,270 @@
+// Descrição: Esta classe representa uma lista reutilizável de movimentos, onde cada movimento é codificado em um único inteiro.
+
+package model;
+
+import java.util.Arrays;
+
+/* A classe guarda movimentos compactados em um vetor de inteiros pré-alocado, para que a geração de movimentos não crie nenhum objeto por
+ * movimento. Cada movimento usa os bits de um int da seguinte forma:
+ *
+ * bits 0 a 4: o índice inicial (de 0 a 31 inclusive).
+ * bits 5 a 9: o índice final.
+ * bits 10 a 14: o índice da (primeira) peça capturada (apenas se o comprimento for maior que 0).
+ * bit 15: a bandeira de promoção a Dama.
+ * bits 16 a 19: o comprimento da cadeia de saltos (0 para um movimento simples).
+ *
+ * Um salto múltiplo completo é um único movimento: o índice final é o da última parada. Junto com cada movimento, a lista guarda a máscara
+ * das peças capturadas (necessária para fazê-lo com Game.makeMove) e o caminho, com os índices de cada parada em 5 bits de um long (a
+ * primeira parada nos bits 0 a 4, a segunda nos bits 5 a 9 e assim por diante).
+ *
+ * O movimento compactado não identifica sozinho uma cadeia de saltos: duas cadeias "gêmeas" podem ter a mesma origem, o mesmo destino, a
+ * mesma primeira captura e o mesmo comprimento e capturar peças diferentes (por exemplo 6x13x20x29 e 6x13x22x29). Um movimento é identificado
+ * pelo par (movimento compactado, máscara das capturas); veja indexOf(int, int) e getTwinRank.
+ *
+ * A classe Move continua sendo usada pela interface, e pode ser criada a partir de um movimento compactado quando necessário.
+ */
+public class MoveList {
+
+	// A capacidade inicial padrão, suficiente para qualquer posição de damas comum.
+	public static final int DEFAULT_CAPACITY = 64;
+
+	// O valor usado para indicar a ausência de um movimento.
+	public static final int NO_MOVE = 0;
+
+	// A máscara de um índice de ladrilho preto.
+	private static final int INDEX_MASK = 0x1F;
+
+	// A posição do índice final.
+	private static final int END_SHIFT = 5;
+
+	// A posição do índice capturado.
+	private static final int CAPTURED_SHIFT = 10;
+
+	// O bit da bandeira de promoção.
+	private static final int PROMOTION_BIT = 1 << 15;
+
+	// A posição do comprimento da cadeia de saltos.
+	private static final int LENGTH_SHIFT = 16;
+
+	// A máscara do comprimento da cadeia de saltos.
+	private static final int LENGTH_MASK = 0xF;
+
+	// Os movimentos compactados.
+	private int[] moves;
+
+	// A máscara das peças capturadas por cada movimento.
+	private int[] captures;
+
+	// O caminho de cada movimento.
+	private long[] paths;
+
+	// O número de movimentos na lista.
+	private int size;
+
+	public MoveList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MoveList(int capacity) {
+		this.moves = new int[Math.max(1, capacity)];
+		this.captures = new int[moves.length];
+		this.paths = new long[moves.length];
+	}
+
+	// Remove todos os movimentos da lista, sem liberar a memória alocada.
+	public void clear() {
+		this.size = 0;
+	}
+
+	// Adiciona um movimento compactado de no máximo um salto ao final da lista. A máscara de captura e o caminho são obtidos do movimento.
+	// move: o movimento a ser adicionado.
+	public void add(int move) {
+		int captured = getCapturedIndex(move);
+		add(move, (captured < 0)? 0 : 1 << captured, getEndIndex(move));
+	}
+
+	// Adiciona um movimento compactado ao final da lista.
+	// move: o movimento a ser adicionado.
+	// captures: a máscara das peças capturadas pelo movimento.
+	// path: o caminho do movimento (veja a descrição da classe).
+	public void add(int move, int captures, long path) {
+		if (size == moves.length) {
+			int n = moves.length * 2;
+			this.moves = Arrays.copyOf(moves, n);
+			this.captures = Arrays.copyOf(this.captures, n);
+			this.paths = Arrays.copyOf(paths, n);
+		}
+		this.moves[size] = move;
+		this.captures[size] = captures;
+		this.paths[size] = path;
+		this.size ++;
+	}
+
+	// Obtém o movimento compactado na posição especificada.
+	// i: a posição na lista (de 0 a size() - 1 inclusive).
+	public int get(int i) {
+		return moves[i];
+	}
+
+	// Obtém a máscara das peças capturadas pelo movimento na posição especificada.
+	public int getCaptures(int i) {
+		return captures[i];
+	}
+
+	// Obtém o caminho do movimento na posição especificada.
+	public long getPath(int i) {
+		return paths[i];
+	}
+
+	// Procura um movimento na lista.
+	// move: o movimento compactado.
+	// a primeira posição do movimento na lista, ou -1 se ele não estiver nela.
+	public int indexOf(int move) {
+		if (move == NO_MOVE) {
+			return -1;
+		}
+		for (int i = 0; i < size; i ++) {
+			if (moves[i] == move) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Procura um movimento na lista pelo movimento compactado e pelas peças capturadas, que juntos identificam uma cadeia de saltos.
+	// move: o movimento compactado.
+	// captures: a máscara das peças capturadas pelo movimento.
+	// a posição do movimento na lista, ou -1 se ele não estiver nela.
+	public int indexOf(int move, int captures) {
+		if (move == NO_MOVE) {
+			return -1;
+		}
+		for (int i = 0; i < size; i ++) {
+			if (moves[i] == move && this.captures[i] == captures) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Obtém a ordem de um movimento entre as suas cadeias gêmeas (mesmo movimento compactado): o número de gêmeas com a máscara de capturas
+	// menor, sem sinal. É 0 para um movimento sem gêmeas e não depende da ordem da lista, de modo que o par (movimento compactado, ordem)
+	// identifica a cadeia em qualquer lista gerada para a mesma posição.
+	// i: a posição do movimento na lista.
+	public int getTwinRank(int i) {
+		int rank = 0;
+		for (int j = 0; j < size; j ++) {
+			if (moves[j] == moves[i] && Integer.compareUnsigned(captures[j], captures[i]) < 0) {
+				rank ++;
+			}
+		}
+		return rank;
+	}
+
+	// Troca dois movimentos de lugar na lista, com as suas capturas e caminhos (usado para ordenar os movimentos durante a busca).
+	public void swap(int i, int j) {
+		int move = moves[i], c = captures[i];
+		long path = paths[i];
+		this.moves[i] = moves[j];
+		this.captures[i] = captures[j];
+		this.paths[i] = paths[j];
+		this.moves[j] = move;
+		this.captures[j] = c;
+		this.paths[j] = path;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Codifica um movimento em um único inteiro.
+	// startIndex: o índice inicial do movimento.
+	// endIndex: o índice final do movimento.
+	// capturedIndex: o índice da peça capturada, ou qualquer valor se não for um salto.
+	// promotion: verdadeiro se a peça se torna uma Dama com o movimento.
+	// length: o número de saltos do movimento (0 para um movimento simples).
+	// retorna o movimento compactado.
+	public static int encode(int startIndex, int endIndex, int capturedIndex,
+			boolean promotion, int length) {
+		int move = (startIndex & INDEX_MASK)
+				| ((endIndex & INDEX_MASK) << END_SHIFT)
+				| ((length & LENGTH_MASK) << LENGTH_SHIFT);
+		if (length > 0) {
+			move |= (capturedIndex & INDEX_MASK) << CAPTURED_SHIFT;
+		}
+		if (promotion) {
+			move |= PROMOTION_BIT;
+		}
+		return move;
+	}
+
+	// Obtém o índice inicial de um movimento compactado.
+	public static int getStartIndex(int move) {
+		return move & INDEX_MASK;
+	}
+
+	// Obtém o índice final de um movimento compactado.
+	public static int getEndIndex(int move) {
+		return (move >>> END_SHIFT) & INDEX_MASK;
+	}
+
+	// Obtém o índice da peça capturada de um movimento compactado, ou -1 se não for um salto.
+	public static int getCapturedIndex(int move) {
+		return isSkip(move)? (move >>> CAPTURED_SHIFT) & INDEX_MASK : -1;
+	}
+
+	// Determina se o movimento compactado promove a peça a Dama.
+	public static boolean isPromotion(int move) {
+		return (move & PROMOTION_BIT) != 0;
+	}
+
+	// Obtém o número de saltos do movimento compactado (0 para um movimento simples).
+	public static int getLength(int move) {
+		return (move >>> LENGTH_SHIFT) & LENGTH_MASK;
+	}
+
+	// Determina se o movimento compactado é um salto.
+	public static boolean isSkip(int move) {
+		return getLength(move) > 0;
+	}
+
+	// Obtém o índice de uma parada do caminho de um movimento.
+	// path: o caminho do movimento.
+	// hop: o número da parada (de 0 ao comprimento do movimento - 1; 0 para um movimento simples).
+	public static int getPathIndex(long path, int hop) {
+		return (int) (path >>> (hop * END_SHIFT)) & INDEX_MASK;
+	}
+
+	// Acrescenta uma parada ao caminho de um movimento.
+	// path: o caminho atual.
+	// hop: o número da nova parada.
+	// index: o índice do ladrilho da nova parada.
+	public static long addPathIndex(long path, int hop, int index) {
+		return path | ((long) (index & INDEX_MASK) << (hop * END_SHIFT));
+	}
+
+	// Cria o objeto Move usado pela interface a partir de um movimento compactado.
+	public static Move toMove(int move) {
+		return new Move(getStartIndex(move), getEndIndex(move));
+	}
+
+	@Override
+	public String toString() {
+		String obj = getClass().getSimpleName() + "[";
+		for (int i = 0; i < size; i ++) {
+			int move = moves[i];
+			obj += (i > 0? ", " : "") + getStartIndex(move);
+			if (!isSkip(move)) {
+				obj += "-" + getEndIndex(move);
+			}
+			for (int hop = 0; hop < getLength(move); hop ++) {
+				obj += "x" + getPathIndex(paths[i], hop);
+			}
+		}
+		return obj + "]";
+	}
+}
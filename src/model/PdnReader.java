@@ -0,0 +1,534 @@
+// Descrição: Esta classe lê partidas no formato PDN (Portable Draughts Notation) de um canal, uma de cada vez, com memória limitada.
+
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import logic.MoveGenerator;
+
+/* A classe lê um canal (por exemplo um FileChannel) através de um buffer de tamanho fixo, sem carregar o arquivo inteiro, e reconhece o PDN
+ * de damas inglesas (GameType 21): etiquetas como [Event "..."], a etiqueta FEN com a posição inicial, os movimentos numerados ("11-15" para
+ * um movimento simples e "15x24" ou "15x24x31" para saltos), comentários entre chaves ou depois de ponto e vírgula, variantes entre parênteses,
+ * anotações ($1, !, ?) e o resultado ("1-0" para vitória das pretas, "0-1" para vitória das brancas, "1/2-1/2" ou "*"). Os ladrilhos são
+ * numerados de 1 a 32, ou seja, o índice do ladrilho preto (veja Board) mais 1.
+ *
+ * Cada movimento é validado contra os movimentos legais da posição (MoveGenerator.generate). Um salto pode ser escrito com todas as paradas ou
+ * apenas com o início e o fim, desde que apenas uma cadeia tenha esse início e esse fim (caso contrário, o movimento é ambíguo e tratado como
+ * ilegal). O texto é lido byte a byte; apenas os nomes e valores das etiquetas criam Strings, com no máximo MAX_TOKEN bytes.
+ */
+public class PdnReader implements Closeable {
+
+	// O tamanho padrão do buffer de leitura.
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	// O tamanho máximo de uma palavra (nome ou valor de etiqueta, movimento); o resto de uma palavra maior é ignorado.
+	public static final int MAX_TOKEN = 1 << 12;
+
+	// O número máximo de ladrilhos em um movimento escrito.
+	private static final int MAX_SQUARES = 16;
+
+	// O valor retornado por parseMove para um salto abreviado que corresponde a mais de uma cadeia.
+	private static final int AMBIGUOUS = -2;
+
+	// As bandeiras dos bytes que são espaços e dos que terminam uma palavra.
+	private static final byte WHITESPACE = 1, END_OF_TOKEN = 2;
+
+	// As bandeiras de cada byte.
+	private static final byte[] TYPES = new byte[256];
+
+	static {
+		for (char c : " \n\r\t\f\u00EF\u00BB\u00BF".toCharArray()) {
+			TYPES[c] = WHITESPACE | END_OF_TOKEN;
+		}
+		for (char c : "{}()[];".toCharArray()) {
+			TYPES[c] = END_OF_TOKEN;
+		}
+	}
+
+	// O canal lido.
+	private final ReadableByteChannel channel;
+
+	// O buffer de leitura.
+	private final ByteBuffer buffer;
+
+	// Os bytes do buffer de leitura.
+	private final byte[] bytes;
+
+	// A posição do próximo byte e o número de bytes válidos no buffer.
+	private int position, limit;
+
+	// A palavra sendo lida.
+	private final byte[] token = new byte[MAX_TOKEN];
+
+	// O número de bytes da palavra sendo lida.
+	private int tokenLength;
+
+	// Os ladrilhos (índices) do movimento sendo lido.
+	private final int[] squares = new int[MAX_SQUARES];
+
+	// O jogo onde os movimentos são feitos para validá-los.
+	private final Game game = new Game();
+
+	// Os movimentos legais da posição atual.
+	private final MoveList moves = new MoveList();
+
+	// A linha atual do texto, para as mensagens de erro.
+	private long line = 1;
+
+	// A bandeira indicando se o fim do canal foi alcançado.
+	private boolean eof;
+
+	public PdnReader(ReadableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	// channel: o canal lido.
+	// bufferSize: o tamanho do buffer de leitura, em bytes.
+	public PdnReader(ReadableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(Math.max(16, bufferSize));
+		this.bytes = buffer.array();
+	}
+
+	/*
+	 * Lê a próxima partida.
+	 *
+	 * record: o registro que recebe a partida (o conteúdo anterior é apagado).
+	 * verdadeiro se uma partida foi lida, ou falso no fim do canal.
+	 * IOException: se o canal não puder ser lido ou a partida tiver um movimento ilegal. Nesse caso, o resto da partida é ignorado e a próxima
+	 * chamada lê a partida seguinte.
+	 */
+	public boolean next(GameRecord record) throws IOException {
+
+		record.clear();
+		boolean started = false, inMoves = false;
+		String error = null;
+		while (true) {
+
+			// Fim do canal
+			int c = skipWhitespace();
+			if (c < 0) {
+				break;
+			}
+
+			// Etiquetas, comentários e anotações
+			if (c == '[') {
+				if (inMoves) {
+					break;
+				}
+				read();
+				String tagError = readTag(record);
+				error = (error == null)? tagError : error;
+				started = true;
+				continue;
+			} else if (c == '{') {
+				skipUntil('}');
+				continue;
+			} else if (c == ';' || c == '%') {
+				skipUntil('\n');
+				continue;
+			} else if (c == '(') {
+				skipVariation();
+				continue;
+			}
+
+			// Movimentos, números dos movimentos e resultado
+			readToken();
+			started = true;
+			String result = parseResult();
+			if (result != null) {
+				record.setResult(result);
+				break;
+			}
+			int start = skipMoveNumber();
+			if (start == tokenLength || error != null || !isDigit(token[start])) {
+				continue;
+			}
+			if (!inMoves) {
+				record.loadStart(game);
+				inMoves = true;
+			}
+			int i = parseMove(start);
+			if (i < 0) {
+				error = "illegal move " + new String(token, 0, tokenLength,
+						StandardCharsets.ISO_8859_1) + " at line " + line
+						+ ((i == AMBIGUOUS)? " (ambiguous: more than one jump has this"
+						+ " start and end, write the full path)" : "");
+				continue;
+			}
+			record.addMove(moves, i);
+			game.makeMove(moves.get(i), moves.getCaptures(i));
+		}
+
+		// Use o resultado da etiqueta se não houver um no fim
+		String tag = record.getTag("Result");
+		if (record.getResult() == GameRecord.UNKNOWN && tag != null) {
+			record.setResult(toResult(tag));
+		}
+		if (error != null) {
+			throw new IOException(error);
+		}
+		return started;
+	}
+
+	// Lê uma etiqueta depois do colchete de abertura, até o colchete de fechamento.
+	// a mensagem de erro se a etiqueta FEN for inválida, ou null.
+	private String readTag(GameRecord record) throws IOException {
+
+		// Leia o nome
+		skipWhitespace();
+		this.tokenLength = 0;
+		int c;
+		while ((c = peek()) >= 0 && c != '"' && c != ']' && !isWhitespace(c)) {
+			append(read());
+		}
+		String name = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+
+		// Leia o valor entre aspas
+		this.tokenLength = 0;
+		if (skipWhitespace() == '"') {
+			read();
+			while ((c = read()) >= 0 && c != '"') {
+				if (c == '\\') {
+					c = read();
+				} else if (c == '\n') {
+					this.line ++;
+				}
+				append(c);
+			}
+		}
+		String value = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+		skipUntil(']');
+
+		// A etiqueta FEN define a posição inicial
+		if (name.equals("FEN")) {
+			try {
+				parseFen(value, game);
+			} catch (IOException e) {
+				return e.getMessage() + " at line " + line;
+			}
+			record.setStart(game);
+		} else {
+			record.setTag(name, value);
+		}
+		return null;
+	}
+
+	// Lê uma palavra de movimento ou resultado, até um espaço ou um caractere especial.
+	private void readToken() throws IOException {
+		this.tokenLength = 0;
+		while (position < limit || fill()) {
+			int c = bytes[position] & 0xFF;
+			if ((TYPES[c] & END_OF_TOKEN) != 0) {
+				break;
+			}
+			this.position ++;
+			append(c);
+		}
+		if (tokenLength == 0) {
+			read();
+		}
+	}
+
+	// Obtém o resultado representado pela palavra lida, ou null se ela não for um resultado.
+	private String parseResult() {
+		if ((tokenLength != 1 && tokenLength != 3 && tokenLength != 7)
+				|| (tokenLength == 3 && token[1] != '-')) {
+			return null;
+		} else if (tokenEquals("*")) {
+			return GameRecord.UNKNOWN;
+		} else if (tokenEquals("1-0") || tokenEquals("2-0")) {
+			return GameRecord.BLACK_WIN;
+		} else if (tokenEquals("0-1") || tokenEquals("0-2")) {
+			return GameRecord.WHITE_WIN;
+		} else if (tokenEquals("1/2-1/2") || tokenEquals("1-1")) {
+			return GameRecord.DRAW;
+		}
+		return null;
+	}
+
+	// Obtém o resultado representado pelo valor de uma etiqueta Result.
+	private static String toResult(String value) {
+		switch (value) {
+		case "1-0": case "2-0":
+			return GameRecord.BLACK_WIN;
+		case "0-1": case "0-2":
+			return GameRecord.WHITE_WIN;
+		case "1/2-1/2": case "1-1":
+			return GameRecord.DRAW;
+		default:
+			return GameRecord.UNKNOWN;
+		}
+	}
+
+	// Pula o número do movimento no início da palavra lida ("12." ou "12..."), se houver.
+	// a posição do primeiro byte depois do número.
+	private int skipMoveNumber() {
+		int i = 0;
+		while (i < tokenLength && isDigit(token[i])) {
+			i ++;
+		}
+		if (i == tokenLength || token[i] != '.') {
+			return 0;
+		}
+		while (i < tokenLength && token[i] == '.') {
+			i ++;
+		}
+		return i;
+	}
+
+	/*
+	 * Encontra o movimento legal escrito na palavra lida.
+	 *
+	 * start: a posição do movimento na palavra.
+	 * a posição do movimento na lista de movimentos legais, -1 se o movimento for inválido ou ilegal, ou AMBIGUOUS se ele for um salto escrito
+	 * apenas com o início e o fim e mais de uma cadeia (com capturas diferentes) tiver esse início e esse fim.
+	 */
+	private int parseMove(int start) {
+
+		// Leia os ladrilhos separados por - ou x, ignorando as anotações no fim
+		int n = 0, value = 0;
+		boolean digits = false;
+		for (int i = start; i < tokenLength; i ++) {
+			int c = token[i];
+			if (isDigit(c)) {
+				value = value * 10 + (c - '0');
+				digits = true;
+				continue;
+			} else if (c == '!' || c == '?') {
+				break;
+			} else if (!digits || (c != '-' && c != 'x' && c != 'X' && c != ':')) {
+				return -1;
+			}
+			if (value < 1 || value > 32 || n == MAX_SQUARES) {
+				return -1;
+			}
+			this.squares[n ++] = value - 1;
+			value = 0;
+			digits = false;
+		}
+		if (!digits || value < 1 || value > 32 || n == MAX_SQUARES) {
+			return -1;
+		}
+		this.squares[n ++] = value - 1;
+		if (n < 2) {
+			return -1;
+		}
+
+		// Sem saltos disponíveis, um movimento simples é validado sem gerar a lista
+		Board board = game.getBoardView();
+		boolean isBlack = game.isP1Turn();
+		int from = squares[0], to = squares[n - 1];
+		if (n == 2 && game.getSkipIndex() < 0 &&
+				MoveGenerator.getJumpers(board, isBlack) == 0) {
+			moves.clear();
+			if ((board.getPieces(isBlack) & (1 << from)) == 0 ||
+					(MoveGenerator.getMoveTargets(board, from) & (1 << to)) == 0) {
+				return -1;
+			}
+			int promotionRow = isBlack? MoveGenerator.BLACK_KING_ROW
+					: MoveGenerator.WHITE_KING_ROW;
+			moves.add(MoveList.encode(from, to, 0, (board.getKings() & (1 << from)) == 0
+					&& (promotionRow & (1 << to)) != 0, 0));
+			return 0;
+		}
+
+		// Compare com os saltos legais, primeiro com todas as paradas
+		MoveGenerator.generate(board, isBlack, game.getSkipIndex(), moves);
+		int shorthand = -1;
+		for (int i = 0; i < moves.size(); i ++) {
+			int move = moves.get(i);
+			if (MoveList.getStartIndex(move) != from ||
+					MoveList.getEndIndex(move) != to) {
+				continue;
+			}
+			int length = MoveList.getLength(move);
+			long path = moves.getPath(i);
+			boolean match = (length == n - 1);
+			for (int hop = 0; hop < length - 1 && match; hop ++) {
+				match = (MoveList.getPathIndex(path, hop) == squares[hop + 1]);
+			}
+			if (match) {
+				return i;
+			} else if (n == 2) {
+				shorthand = (shorthand == -1)? i : AMBIGUOUS;
+			}
+		}
+
+		// Um salto escrito apenas com o início e o fim, que precisa identificar uma única cadeia
+		return shorthand;
+	}
+
+	/*
+	 * Aplica uma posição no formato FEN do PDN a um jogo, por exemplo "B:W18,24,K10:B12,16,20-22,K29" (a vez, depois as peças brancas e as
+	 * pretas, com K antes das Damas e faixas de ladrilhos com -).
+	 *
+	 * fen: o texto da posição.
+	 * game: o jogo que recebe a posição.
+	 * IOException: se o texto não for uma posição válida.
+	 */
+	public static void parseFen(String fen, Game game) throws IOException {
+		int black = 0, white = 0, kings = 0;
+		boolean isBlackTurn = true, isBlack = true;
+		String[] fields = fen.trim().split(":");
+		if (fields.length == 0 || fields[0].isEmpty()) {
+			throw new IOException("invalid FEN: " + fen);
+		}
+		isBlackTurn = (Character.toUpperCase(fields[0].charAt(0)) == 'B');
+		for (int f = 1; f < fields.length; f ++) {
+			String field = fields[f].trim();
+			if (field.isEmpty()) {
+				continue;
+			}
+			char color = Character.toUpperCase(field.charAt(0));
+			if (color != 'B' && color != 'W') {
+				throw new IOException("invalid FEN: " + fen);
+			}
+			isBlack = (color == 'B');
+			for (String square : field.substring(1).split(",")) {
+				square = square.trim();
+				if (square.endsWith(".")) {
+					square = square.substring(0, square.length() - 1);
+				}
+				if (square.isEmpty()) {
+					continue;
+				}
+				boolean isKing = (Character.toUpperCase(square.charAt(0)) == 'K');
+				if (isKing) {
+					square = square.substring(1);
+				}
+				int dash = square.indexOf('-');
+				int first, last;
+				try {
+					first = Integer.parseInt((dash < 0)? square : square.substring(0, dash));
+					last = (dash < 0)? first : Integer.parseInt(square.substring(dash + 1));
+				} catch (NumberFormatException e) {
+					throw new IOException("invalid FEN: " + fen);
+				}
+				if (first < 1 || last > 32 || first > last) {
+					throw new IOException("invalid FEN: " + fen);
+				}
+				for (int s = first; s <= last; s ++) {
+					int bit = 1 << (s - 1);
+					black = isBlack? black | bit : black & ~bit;
+					white = isBlack? white & ~bit : white | bit;
+					kings = isKing? kings | bit : kings & ~bit;
+				}
+			}
+		}
+		game.setPosition(black, white, kings, isBlackTurn, -1);
+	}
+
+	// Determina se a palavra lida é igual a um texto.
+	private boolean tokenEquals(String text) {
+		if (tokenLength != text.length()) {
+			return false;
+		}
+		for (int i = 0; i < tokenLength; i ++) {
+			if (token[i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Acrescenta um byte à palavra lida, se ela ainda não estiver cheia.
+	private void append(int c) {
+		if (c >= 0 && tokenLength < MAX_TOKEN) {
+			this.token[tokenLength ++] = (byte) c;
+		}
+	}
+
+	// Pula os espaços e as quebras de linha.
+	// o próximo byte (sem consumi-lo), ou -1 no fim do canal.
+	private int skipWhitespace() throws IOException {
+		int c;
+		while ((c = peek()) >= 0 && isWhitespace(c)) {
+			if (read() == '\n') {
+				this.line ++;
+			}
+		}
+		return c;
+	}
+
+	// Pula os bytes até um byte específico, inclusive.
+	private void skipUntil(int end) throws IOException {
+		int c;
+		while ((c = read()) >= 0 && c != end) {
+			if (c == '\n') {
+				this.line ++;
+			}
+		}
+		if (end == '\n' && c == '\n') {
+			this.line ++;
+		}
+	}
+
+	// Pula uma variante entre parênteses, que pode conter outras variantes e comentários.
+	private void skipVariation() throws IOException {
+		int depth = 0, c;
+		while ((c = read()) >= 0) {
+			if (c == '(') {
+				depth ++;
+			} else if (c == ')' && -- depth == 0) {
+				return;
+			} else if (c == '{') {
+				skipUntil('}');
+			} else if (c == '\n') {
+				this.line ++;
+			}
+		}
+	}
+
+	// Obtém o próximo byte sem consumi-lo, ou -1 no fim do canal.
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return bytes[position] & 0xFF;
+	}
+
+	// Consome o próximo byte, ou retorna -1 no fim do canal.
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return bytes[position ++] & 0xFF;
+	}
+
+	// Lê mais bytes do canal para o buffer vazio.
+	// verdadeiro se algum byte foi lido.
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		buffer.clear();
+		int n;
+		while ((n = channel.read(buffer)) == 0) {}
+		this.position = 0;
+		this.limit = Math.max(0, buffer.position());
+		if (n < 0) {
+			this.eof = true;
+			return false;
+		}
+		return true;
+	}
+
+	// Determina se um byte é um espaço (incluindo os bytes da marca de ordem do UTF-8 no início de um arquivo).
+	private static boolean isWhitespace(int c) {
+		return (TYPES[c] & WHITESPACE) != 0;
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
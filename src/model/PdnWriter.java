@@ -0,0 +1,211 @@
+// Descrição: Esta classe escreve partidas no formato PDN (Portable Draughts Notation) em um canal, através de um buffer de tamanho fixo.
+
+package model;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/* A classe escreve cada partida com as etiquetas do registro, a etiqueta FEN se a partida não começar da posição inicial padrão, os movimentos
+ * numerados (com todas as paradas de um salto múltiplo, por exemplo "15x24x31") em linhas de no máximo 80 caracteres e o resultado, no
+ * formato lido por PdnReader. Os movimentos são montados em um vetor de bytes reutilizado, sem criar Strings; o buffer é escrito no canal
+ * quando enche.
+ */
+public class PdnWriter implements Closeable, Flushable {
+
+	// O tamanho padrão do buffer de escrita.
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	// O número máximo de caracteres de uma linha de movimentos.
+	private static final int LINE_LENGTH = 80;
+
+	// O tamanho máximo de uma palavra (número do movimento, movimento ou resultado).
+	private static final int MAX_WORD = 64;
+
+	// O canal escrito.
+	private final WritableByteChannel channel;
+
+	// O buffer de escrita.
+	private final ByteBuffer buffer;
+
+	// O número de caracteres na linha atual.
+	private int column;
+
+	// A palavra sendo montada.
+	private final byte[] word = new byte[MAX_WORD];
+
+	// O número de bytes da palavra sendo montada.
+	private int wordLength;
+
+	// O jogo onde os movimentos são feitos para saber de quem é a vez.
+	private final Game game = new Game();
+
+	public PdnWriter(WritableByteChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	// channel: o canal escrito.
+	// bufferSize: o tamanho do buffer de escrita, em bytes.
+	public PdnWriter(WritableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocate(Math.max(MAX_WORD * 2, bufferSize));
+	}
+
+	/*
+	 * Escreve uma partida.
+	 *
+	 * record: a partida.
+	 * IOException: se o canal não puder ser escrito.
+	 */
+	public void write(GameRecord record) throws IOException {
+
+		// Escreva as etiquetas
+		for (Map.Entry<String, String> tag : record.getTags().entrySet()) {
+			if (!tag.getKey().equals("FEN")) {
+				writeTag(tag.getKey(), tag.getValue());
+			}
+		}
+		record.loadStart(game);
+		if (!record.isStandardStart()) {
+			writeTag("FEN", toFen(game));
+		}
+
+		// Escreva os movimentos
+		this.column = 0;
+		int number = 1;
+		for (int i = 0; i < record.getMoveCount(); i ++) {
+			this.wordLength = 0;
+			boolean isBlack = game.isP1Turn();
+			if (isBlack || i == 0) {
+				putInt(number);
+				put(isBlack? "." : "...");
+				writeWord();
+			}
+			int move = record.getMove(i);
+			putInt(MoveList.getStartIndex(move) + 1);
+			if (!MoveList.isSkip(move)) {
+				put("-");
+				putInt(MoveList.getEndIndex(move) + 1);
+			}
+			long path = record.getPath(i);
+			for (int hop = 0; hop < MoveList.getLength(move); hop ++) {
+				put("x");
+				putInt(MoveList.getPathIndex(path, hop) + 1);
+			}
+			writeWord();
+			game.makeMove(move, record.getCaptures(i));
+			number += isBlack? 0 : 1;
+		}
+
+		// Escreva o resultado
+		put(record.getResult());
+		writeWord();
+		reserve(2);
+		buffer.put((byte) '\n').put((byte) '\n');
+	}
+
+	// Escreve uma etiqueta em uma linha, com as aspas e barras do valor escapadas.
+	private void writeTag(String name, String value) throws IOException {
+		byte[] n = name.getBytes(StandardCharsets.UTF_8);
+		byte[] v = value.getBytes(StandardCharsets.UTF_8);
+		reserve(n.length + 2 * v.length + 6);
+		buffer.put((byte) '[').put(n).put((byte) ' ').put((byte) '"');
+		for (byte b : v) {
+			if (b == '"' || b == '\\') {
+				buffer.put((byte) '\\');
+			}
+			buffer.put(b);
+		}
+		buffer.put((byte) '"').put((byte) ']').put((byte) '\n');
+	}
+
+	// Escreve a palavra montada, precedida de um espaço ou, se ela não couber na linha atual, de uma quebra de linha.
+	private void writeWord() throws IOException {
+		reserve(wordLength + 1);
+		if (column > 0) {
+			boolean newLine = (column + 1 + wordLength > LINE_LENGTH);
+			buffer.put((byte) (newLine? '\n' : ' '));
+			this.column = newLine? 0 : column + 1;
+		}
+		buffer.put(word, 0, wordLength);
+		this.column += wordLength;
+		this.wordLength = 0;
+	}
+
+	// Acrescenta um número inteiro não negativo em decimal à palavra montada.
+	private void putInt(int value) {
+		if (value >= 10) {
+			putInt(value / 10);
+		}
+		this.word[wordLength ++] = (byte) ('0' + value % 10);
+	}
+
+	// Acrescenta um texto ASCII à palavra montada.
+	private void put(String text) {
+		for (int i = 0; i < text.length(); i ++) {
+			this.word[wordLength ++] = (byte) text.charAt(i);
+		}
+	}
+
+	// Garante que o buffer tenha espaço para n bytes, escrevendo o conteúdo no canal se necessário.
+	private void reserve(int n) throws IOException {
+		if (buffer.remaining() < n) {
+			flushBuffer();
+		}
+		if (buffer.remaining() < n) {
+			throw new IOException("record too long for the buffer");
+		}
+	}
+
+	// Escreve o conteúdo do buffer no canal.
+	private void flushBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/*
+	 * Obtém a posição de um jogo no formato FEN do PDN, por exemplo "B:W18,24,K10:B12,16,K29".
+	 *
+	 * game: o jogo.
+	 * o texto da posição.
+	 */
+	public static String toFen(Game game) {
+		Board board = game.getBoardView();
+		StringBuilder fen = new StringBuilder(game.isP1Turn()? "B" : "W");
+		appendPieces(fen, 'W', board.getWhite(), board.getKings());
+		appendPieces(fen, 'B', board.getBlack(), board.getKings());
+		return fen.toString();
+	}
+
+	// Acrescenta as peças de um jogador ao texto FEN.
+	private static void appendPieces(StringBuilder fen, char color, int pieces,
+			int kings) {
+		fen.append(':').append(color);
+		for (int p = pieces, n = 0; p != 0; p &= p - 1, n ++) {
+			int index = Integer.numberOfTrailingZeros(p);
+			fen.append((n > 0)? "," : "").append(((kings >>> index) & 1) != 0? "K" : "")
+					.append(index + 1);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			channel.close();
+		}
+	}
+}
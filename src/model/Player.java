@@ -13,6 +13,17 @@ public abstract class Player {
 	// game: o jogo para atualizar.
 	public abstract void updateGame(Game game);
 	
+	// Pede que uma chamada de updateGame em andamento em outra thread termine o quanto antes. O jogo dessa chamada não deve mais ser usado,
+	// pois o movimento pode ter sido escolhido sem terminar a análise. Por padrão, não faz nada.
+	public void cancel() {
+	}
+	
+	// Usa a vez do adversário para analisar o jogo, até terminar ou até cancel ser chamado. É chamado em outra thread, com uma cópia do jogo
+	// na vez do adversário, e nunca ao mesmo tempo que updateGame. Por padrão, não faz nada.
+	// game: uma cópia do jogo, que pode ser alterada.
+	public void ponder(Game game) {
+	}
+	
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "[isHuman=" + isHuman() + "]";
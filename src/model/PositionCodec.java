@@ -0,0 +1,177 @@
+// Descrição: Esta classe codifica o estado de um jogo (tabuleiro, vez e salto pendente) em um formato binário compacto de tamanho fixo.
+
+package model;
+
+import java.nio.ByteBuffer;
+
+/* A classe substitui a string de Game.getGameState quando o estado precisa ser guardado, comparado ou transmitido muitas vezes. O estado é
+ * formado pelas três máscaras do tabuleiro (peças pretas, peças brancas e Damas, veja Board) e por um byte com a vez e o salto pendente:
+ *
+ * bits 0 a 5: o índice do salto pendente mais 1 (0 se não houver salto pendente).
+ * bit 7: a vez do jogador 1 (as pretas).
+ *
+ * Em um ByteBuffer, o estado ocupa 13 bytes (as três máscaras, na ordem do buffer, e o byte de estado). Em um vetor de longs, ocupa 2 longs: o
+ * primeiro com as peças pretas nos 32 bits baixos e as brancas nos altos, e o segundo com as Damas nos 32 bits baixos e o byte de estado
+ * acima delas. A forma de texto tem sempre 26 dígitos hexadecimais (as três máscaras e o byte de estado).
+ *
+ * Nenhum método cria objetos, exceto toText.
+ */
+public class PositionCodec {
+
+	// O número de bytes de um estado em um ByteBuffer.
+	public static final int BYTES = 13;
+
+	// O número de longs de um estado em um vetor.
+	public static final int LONGS = 2;
+
+	// O número de caracteres da forma de texto.
+	public static final int TEXT_LENGTH = 26;
+
+	// O bit da vez do jogador 1 no byte de estado.
+	private static final int P1_TURN = 0x80;
+
+	// A máscara do índice do salto (mais 1) no byte de estado.
+	private static final int SKIP_MASK = 0x3F;
+
+	// A máscara dos 32 bits baixos de um long.
+	private static final long INT_MASK = 0xFFFFFFFFL;
+
+	private PositionCodec() {}
+
+	/*
+	 * Escreve o estado de um jogo em um buffer, na posição atual do buffer.
+	 *
+	 * game: o jogo.
+	 * buffer: o buffer, com pelo menos 13 bytes restantes.
+	 */
+	public static void encode(Game game, ByteBuffer buffer) {
+		Board board = game.getBoardView();
+		buffer.putInt(board.getBlack());
+		buffer.putInt(board.getWhite());
+		buffer.putInt(board.getKings());
+		buffer.put((byte) getState(game));
+	}
+
+	/*
+	 * Lê um estado de um buffer, a partir da posição atual do buffer, e o aplica ao jogo. O histórico de movimentos do jogo é descartado.
+	 *
+	 * buffer: o buffer, com pelo menos 13 bytes restantes.
+	 * game: o jogo que recebe o estado.
+	 */
+	public static void decode(ByteBuffer buffer, Game game) {
+		int black = buffer.getInt(), white = buffer.getInt(), kings = buffer.getInt();
+		setState(game, black, white, kings, buffer.get());
+	}
+
+	/*
+	 * Escreve o estado de um jogo em um vetor de longs.
+	 *
+	 * game: o jogo.
+	 * out: o vetor.
+	 * offset: a posição do primeiro long no vetor.
+	 */
+	public static void encode(Game game, long[] out, int offset) {
+		Board board = game.getBoardView();
+		out[offset] = (board.getBlack() & INT_MASK)
+				| ((long) board.getWhite() << 32);
+		out[offset + 1] = (board.getKings() & INT_MASK)
+				| ((long) getState(game) << 32);
+	}
+
+	/*
+	 * Lê um estado de um vetor de longs e o aplica ao jogo. O histórico de movimentos do jogo é descartado.
+	 *
+	 * in: o vetor.
+	 * offset: a posição do primeiro long no vetor.
+	 * game: o jogo que recebe o estado.
+	 */
+	public static void decode(long[] in, int offset, Game game) {
+		long pieces = in[offset], rest = in[offset + 1];
+		setState(game, (int) pieces, (int) (pieces >>> 32), (int) rest,
+				(int) (rest >>> 32));
+	}
+
+	/*
+	 * Determina se o estado de um jogo é igual ao guardado em um vetor de longs, sem decodificá-lo.
+	 *
+	 * game: o jogo.
+	 * in: o vetor.
+	 * offset: a posição do primeiro long no vetor.
+	 */
+	public static boolean equals(Game game, long[] in, int offset) {
+		Board board = game.getBoardView();
+		return in[offset] == ((board.getBlack() & INT_MASK)
+				| ((long) board.getWhite() << 32))
+				&& in[offset + 1] == ((board.getKings() & INT_MASK)
+				| ((long) getState(game) << 32));
+	}
+
+	/*
+	 * Escreve a forma de texto do estado de um jogo.
+	 *
+	 * game: o jogo.
+	 * out: onde o texto é acrescentado.
+	 */
+	public static void appendText(Game game, StringBuilder out) {
+		Board board = game.getBoardView();
+		appendHex(out, board.getBlack(), 8);
+		appendHex(out, board.getWhite(), 8);
+		appendHex(out, board.getKings(), 8);
+		appendHex(out, getState(game), 2);
+	}
+
+	// Obtém a forma de texto do estado de um jogo (26 dígitos hexadecimais minúsculos).
+	public static String toText(Game game) {
+		StringBuilder out = new StringBuilder(TEXT_LENGTH);
+		appendText(game, out);
+		return out.toString();
+	}
+
+	/*
+	 * Lê a forma de texto de um estado e a aplica ao jogo. O histórico de movimentos do jogo é descartado.
+	 *
+	 * text: o texto, com 26 dígitos hexadecimais.
+	 * game: o jogo que recebe o estado.
+	 * IllegalArgumentException: se o texto não estiver na forma de texto.
+	 */
+	public static void fromText(CharSequence text, Game game) {
+		if (text == null || text.length() != TEXT_LENGTH) {
+			throw new IllegalArgumentException("invalid position: " + text);
+		}
+		setState(game, parseHex(text, 0, 8), parseHex(text, 8, 8),
+				parseHex(text, 16, 8), parseHex(text, 24, 2));
+	}
+
+	// Obtém o byte de estado (vez e salto pendente) de um jogo.
+	private static int getState(Game game) {
+		return (game.isP1Turn()? P1_TURN : 0) | ((game.getSkipIndex() + 1) & SKIP_MASK);
+	}
+
+	// Aplica as máscaras e o byte de estado a um jogo.
+	private static void setState(Game game, int black, int white, int kings,
+			int state) {
+		int skip = (state & SKIP_MASK) - 1;
+		game.setPosition(black, white, kings, (state & P1_TURN) != 0,
+				(skip < 32)? skip : -1);
+	}
+
+	// Acrescenta os últimos dígitos hexadecimais de um número, incluindo os zeros à esquerda.
+	private static void appendHex(StringBuilder out, int value, int digits) {
+		for (int shift = 4 * (digits - 1); shift >= 0; shift -= 4) {
+			out.append(Character.forDigit((value >>> shift) & 0xF, 16));
+		}
+	}
+
+	// Lê um número hexadecimal de um trecho do texto.
+	private static int parseHex(CharSequence text, int start, int digits) {
+		int value = 0;
+		for (int i = start; i < start + digits; i ++) {
+			int digit = Character.digit(text.charAt(i), 16);
+			if (digit < 0) {
+				throw new IllegalArgumentException("invalid position: " + text);
+			}
+			value = (value << 4) | digit;
+		}
+		return value;
+	}
+}
@@ -0,0 +1,86 @@
+// Descrição: Esta classe contém as chaves de Zobrist usadas para identificar uma posição do jogo com um único número de 64 bits.
+
+package model;
+
+/* A classe gera uma chave aleatória para cada combinação de peça e ladrilho preto (4 IDs x 32 ladrilhos), uma para a vez do jogador 2 e uma
+ * para cada índice de salto pendente. O código de uma posição é o XOR das chaves de tudo o que está presente nela, de modo que uma jogada pode
+ * atualizá-lo com poucos XORs em vez de recalculá-lo. As chaves são geradas a partir de uma semente fixa e, portanto, são sempre as mesmas
+ * (o que permite guardar códigos em arquivos).
+ */
+public final class Zobrist {
+
+	// A semente usada para gerar as chaves.
+	private static final long SEED = 0x9E3779B97F4A7C15L;
+
+	// As chaves de cada peça (ID - 4) em cada ladrilho preto.
+	private static final long[][] PIECES = new long[4][32];
+
+	// A chave usada quando é a vez do jogador 2.
+	private static final long P2_TURN;
+
+	// As chaves de cada índice de salto pendente.
+	private static final long[] SKIPS = new long[32];
+
+	static {
+		long[] seed = {SEED};
+		for (int id = 0; id < PIECES.length; id ++) {
+			for (int i = 0; i < 32; i ++) {
+				PIECES[id][i] = next(seed);
+			}
+		}
+		P2_TURN = next(seed);
+		for (int i = 0; i < 32; i ++) {
+			SKIPS[i] = next(seed);
+		}
+	}
+
+	private Zobrist() {}
+
+	// Obtém a chave de uma peça em um ladrilho preto.
+	// id: o ID da peça (um ladrilho vazio ou um ID inválido não tem chave).
+	// index: o índice do ladrilho preto (de 0 a 31 inclusive).
+	// a chave correspondente, ou 0.
+	public static long piece(int id, int index) {
+		if (id < Board.WHITE_CHECKER || id > Board.BLACK_KING ||
+				!Board.isValidIndex(index)) {
+			return 0;
+		}
+		return PIECES[id - Board.WHITE_CHECKER][index];
+	}
+
+	// Obtém a chave correspondente à vez do jogador e ao salto pendente.
+	// isP1Turn: a bandeira indicando se é a vez do jogador 1.
+	// skipIndex: o índice do último salto neste turno, ou -1 se não houver.
+	// a chave correspondente.
+	public static long state(boolean isP1Turn, int skipIndex) {
+		long key = isP1Turn? 0 : P2_TURN;
+		if (Board.isValidIndex(skipIndex)) {
+			key ^= SKIPS[skipIndex];
+		}
+		return key;
+	}
+
+	// Calcula o código completo de uma posição, sem usar atualizações incrementais.
+	// board: o tabuleiro.
+	// isP1Turn: a bandeira indicando se é a vez do jogador 1.
+	// skipIndex: o índice do último salto neste turno, ou -1 se não houver.
+	// o código de 64 bits da posição.
+	public static long hash(Board board, boolean isP1Turn, int skipIndex) {
+		long hash = state(isP1Turn, skipIndex);
+		int pieces = board.getBlack() | board.getWhite();
+		while (pieces != 0) {
+			int index = Integer.numberOfTrailingZeros(pieces);
+			hash ^= piece(board.get(index), index);
+			pieces &= pieces - 1;
+		}
+		return hash;
+	}
+
+	// Gera o próximo número pseudoaleatório (SplitMix64), atualizando a semente.
+	private static long next(long[] seed) {
+		long z = (seed[0] += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
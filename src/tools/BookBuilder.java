@@ -0,0 +1,291 @@
+// Descrição: Este programa gera o livro de aberturas usado por logic.OpeningBook a partir de partidas do computador contra ele mesmo.
+
+package tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import logic.MoveGenerator;
+import logic.OpeningBook;
+import logic.Search;
+import model.ComputerPlayer;
+import model.Game;
+import model.MoveList;
+
+/* O programa joga partidas do computador contra ele mesmo, em paralelo, e guarda os movimentos jogados nos primeiros turnos de cada partida
+ * com o resultado final. Para que as partidas sejam diferentes, os primeiros turnos de cada uma são sorteados entre os movimentos legais; o
+ * resto é jogado pela busca. Uma partida que passa do número máximo de turnos é considerada empatada.
+ *
+ * As estatísticas de cada par (posição, movimento) são somadas, incluindo as do livro já existente no arquivo de saída, e escritas em ordem
+ * de código de Zobrist, no formato descrito em logic.OpeningBook. Cada movimento é identificado pelo movimento compactado junto com as suas
+ * capturas, que distinguem as cadeias de saltos gêmeas (veja MoveList). Os movimentos sorteados também entram no livro, mas o livro só escolhe os
+ * movimentos com os melhores resultados.
+ *
+ * Uso: java tools.BookBuilder [partidas] [profundidade] [turnos do livro] [turnos sorteados] [arquivo] [threads]
+ * Exemplo: java tools.BookBuilder 10000 10 16 4 book.cbk 32
+ */
+public class BookBuilder {
+
+	// O número máximo de turnos de uma partida antes de ela ser considerada empatada.
+	private static final int MAX_PLIES = 200;
+
+	// O resultado de uma partida vencida pelas pretas, pelas brancas ou empatada.
+	private static final int BLACK_WIN = 1, WHITE_WIN = -1, DRAW = 0;
+
+	// A profundidade da busca em cada turno.
+	private final int depth;
+
+	// O número de turnos de cada partida guardados no livro.
+	private final int bookPlies;
+
+	// O número de turnos sorteados no início de cada partida.
+	private final int randomPlies;
+
+	// O número de threads.
+	private final int threads;
+
+	// As estatísticas de cada posição: para cada movimento (veja toEntry), o peso, as vitórias e os empates.
+	private final Map<Long, Map<Long, int[]>> stats = new HashMap<>();
+
+	public BookBuilder(int depth, int bookPlies, int randomPlies, int threads) {
+		this.depth = Math.max(1, depth);
+		this.bookPlies = Math.max(1, bookPlies);
+		this.randomPlies = Math.max(0, randomPlies);
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Joga as partidas e soma as estatísticas.
+	 *
+	 * games: o número de partidas.
+	 * seed: a semente do sorteio dos primeiros turnos (a partida i usa seed + i).
+	 * InterruptedException: se as partidas forem interrompidas.
+	 */
+	public void play(int games, long seed) throws InterruptedException {
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ThreadLocal<ComputerPlayer> players = ThreadLocal.withInitial(() -> {
+			ComputerPlayer player = new ComputerPlayer(depth);
+			player.setBook(null);
+			return player;
+		});
+		try {
+
+			// Jogue as partidas
+			CompletionService<long[]> results = new ExecutorCompletionService<>(pool);
+			for (int i = 0; i < games; i ++) {
+				long gameSeed = seed + i;
+				results.submit(() -> playGame(players.get(), new Random(gameSeed)));
+			}
+
+			// Some os resultados na ordem em que as partidas terminam
+			long start = System.nanoTime();
+			int[] outcomes = new int[3];
+			for (int i = 0; i < games; i ++) {
+				long[] record = results.take().get();
+				int result = (int) record[0];
+				outcomes[result + 1] ++;
+				for (int ply = 1; ply < record.length; ply += 2) {
+					add(record[ply], record[ply + 1], (ply / 2) % 2 == 0, result);
+				}
+				if ((i + 1) % 100 == 0 || i + 1 == games) {
+					System.out.printf("%d games: black %d, white %d, draws %d "
+							+ "(%.1f games/s)%n", i + 1, outcomes[2], outcomes[0],
+							outcomes[1], (i + 1) / ((System.nanoTime() - start) / 1e9));
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Joga uma partida.
+	 *
+	 * player: o jogador que faz os movimentos dos dois lados.
+	 * random: o gerador usado para sortear os primeiros turnos.
+	 * o resultado (BLACK_WIN, WHITE_WIN ou DRAW) seguido do código da posição e do movimento (veja toEntry) de cada um dos primeiros turnos.
+	 */
+	private long[] playGame(ComputerPlayer player, Random random) {
+
+		Game game = new Game();
+		MoveList moves = new MoveList();
+		long[] record = new long[1 + 2 * bookPlies];
+		int n = 0;
+		player.getSearch().getTable().clear();
+		for (int ply = 0; ply < MAX_PLIES; ply ++) {
+
+			// Sem movimentos, o jogador da vez perdeu
+			MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+					game.getSkipIndex(), moves);
+			if (moves.isEmpty()) {
+				record[0] = game.isP1Turn()? WHITE_WIN : BLACK_WIN;
+				return Arrays.copyOf(record, 1 + 2 * n);
+			}
+
+			// Sorteie ou busque o movimento
+			int i;
+			if (ply < randomPlies) {
+				i = random.nextInt(moves.size());
+			} else {
+				Search search = player.getSearch();
+				int move = search.search(game, player.getLimits());
+				i = moves.indexOf(move, search.getBestCaptures());
+				if (i < 0) {
+					throw new IllegalStateException("search returned an illegal move "
+							+ move + " in " + game.getGameState());
+				}
+			}
+			if (ply < bookPlies) {
+				record[1 + 2 * n] = game.getHash();
+				record[2 + 2 * n] = toEntry(moves.get(i), moves.getCaptures(i));
+				n ++;
+			}
+			game.makeMove(moves.get(i), moves.getCaptures(i));
+		}
+
+		// O último movimento permitido pode ter deixado o adversário sem movimentos; só sem vencedor a partida é empatada
+		MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+				game.getSkipIndex(), moves);
+		if (moves.isEmpty()) {
+			record[0] = game.isP1Turn()? WHITE_WIN : BLACK_WIN;
+		} else {
+			record[0] = DRAW;
+		}
+		return Arrays.copyOf(record, 1 + 2 * n);
+	}
+
+	// Soma o resultado de uma partida às estatísticas de um movimento.
+	// key: o código da posição.
+	// move: o movimento jogado (veja toEntry).
+	// isBlack: a bandeira indicando se o movimento foi feito pelas pretas.
+	// result: o resultado da partida.
+	private void add(long key, long move, boolean isBlack, int result) {
+		int[] s = stats.computeIfAbsent(key, k -> new HashMap<>())
+				.computeIfAbsent(move, m -> new int[3]);
+		s[0] ++;
+		if (result == DRAW) {
+			s[2] ++;
+		} else if ((result == BLACK_WIN) == isBlack) {
+			s[1] ++;
+		}
+	}
+
+	/*
+	 * Soma as estatísticas de um livro existente.
+	 *
+	 * book: o livro.
+	 */
+	public void merge(OpeningBook book) {
+		for (int i = 0; i < book.size(); i ++) {
+			int[] s = stats.computeIfAbsent(book.getKey(i), k -> new HashMap<>())
+					.computeIfAbsent(toEntry(book.getMove(i), book.getCaptures(i)),
+							m -> new int[3]);
+			s[0] += book.getWeight(i);
+			s[1] += book.getWins(i);
+			s[2] += book.getDraws(i);
+		}
+	}
+
+	/*
+	 * Escreve o livro, primeiro em um arquivo temporário que depois substitui o arquivo final.
+	 *
+	 * file: o arquivo do livro.
+	 * o número de registros escritos.
+	 * IOException: se o arquivo não puder ser escrito.
+	 */
+	public long write(Path file) throws IOException {
+
+		// Ordene as posições pelo código e os movimentos pelo peso
+		Long[] keys = stats.keySet().toArray(new Long[0]);
+		Arrays.sort(keys);
+		long count = 0;
+		for (Map<Long, int[]> moves : stats.values()) {
+			count += moves.size();
+		}
+
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.RECORD_SIZE * 4096);
+			OpeningBook.putHeader(buffer, count);
+			for (Long key : keys) {
+				List<Map.Entry<Long, int[]>> moves = new ArrayList<>(
+						stats.get(key).entrySet());
+				moves.sort((a, b) -> Integer.compare(b.getValue()[0], a.getValue()[0]));
+				for (Map.Entry<Long, int[]> e : moves) {
+					if (buffer.remaining() < OpeningBook.RECORD_SIZE) {
+						flush(channel, buffer);
+					}
+					int[] s = e.getValue();
+					long move = e.getKey();
+					OpeningBook.putRecord(buffer, key, (int) move, (int) (move >>> 32),
+							s[0], s[1], s[2]);
+				}
+			}
+			flush(channel, buffer);
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+		return count;
+	}
+
+	// Junta um movimento compactado e as suas capturas em um long (as capturas nos 32 bits mais altos), que identifica o movimento mesmo entre
+	// cadeias de saltos gêmeas.
+	private static long toEntry(int move, int captures) {
+		return ((long) captures << 32) | (move & 0xFFFFFFFFL);
+	}
+
+	// Escreve o conteúdo de um buffer e o esvazia.
+	private static void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		int games = (args.length > 0)? Integer.parseInt(args[0]) : 1000;
+		int depth = (args.length > 1)? Integer.parseInt(args[1]) : 8;
+		int bookPlies = (args.length > 2)? Integer.parseInt(args[2]) : 16;
+		int randomPlies = (args.length > 3)? Integer.parseInt(args[3]) : 4;
+		Path file = Paths.get((args.length > 4)? args[4] : OpeningBook.DEFAULT_PATH);
+		int threads = (args.length > 5)? Integer.parseInt(args[5])
+				: Runtime.getRuntime().availableProcessors();
+
+		// Some o livro existente, se houver
+		BookBuilder builder = new BookBuilder(depth, bookPlies, randomPlies, threads);
+		if (Files.isRegularFile(file)) {
+			OpeningBook book = new OpeningBook(file);
+			builder.merge(book);
+			System.out.println(file + " loaded (" + book.size() + " records)");
+		}
+
+		builder.play(games, System.nanoTime());
+		long count = builder.write(file);
+		System.out.println(file + " written (" + count + " records)");
+	}
+}
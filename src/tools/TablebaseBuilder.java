@@ -0,0 +1,345 @@
+// Descrição: Este programa gera as bases de dados de finais usadas por logic.Tablebase, por análise retrógrada.
+
+package tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import logic.MoveGenerator;
+import logic.Tablebase;
+import model.Board;
+import model.MoveList;
+
+/* O programa gera uma base de dados para cada combinação de material com até N peças (com pelo menos uma peça de cada jogador), usando as
+ * mesmas regras do jogo (MoveGenerator.generate, com saltos obrigatórios e cadeias de saltos completas).
+ *
+ * As combinações são geradas em ordem crescente de peças e, para o mesmo número de peças, de peças comuns: uma captura leva a uma combinação
+ * com menos peças e uma promoção a uma com menos peças comuns, ambas já geradas e consultadas pelo mapeamento em memória. As combinações de um
+ * mesmo grupo não dependem umas das outras e são geradas em paralelo.
+ *
+ * Cada combinação é resolvida em passadas sobre todas as posições. A passada 0 marca as posições sem movimentos como derrotas. Na passada n,
+ * uma posição ainda desconhecida é uma vitória em n movimentos se algum movimento levar a uma derrota conhecida em menos de n movimentos, ou
+ * uma derrota em n movimentos se todos os movimentos levarem a vitórias do adversário conhecidas em menos de n movimentos. As passadas
+ * continuam até nenhuma posição mudar; as posições restantes são empates. Se as passadas chegarem à distância máxima que um valor guarda
+ * (Tablebase.MAX_DISTANCE) com posições ainda mudando, a geração falha em vez de gravar vitórias longas como empates.
+ *
+ * Uso: java tools.TablebaseBuilder [peças] [pasta] [threads]
+ * Exemplo: java -Xmx8g tools.TablebaseBuilder 6 tablebase 32
+ */
+public class TablebaseBuilder {
+
+	// O número padrão de peças.
+	private static final int DEFAULT_PIECES = 4;
+
+	// O número de bits de cada bloco dos valores em memória.
+	private static final int CHUNK_BITS = 30;
+
+	// A pasta onde os arquivos são escritos.
+	private final Path directory;
+
+	// O número de threads.
+	private final int threads;
+
+	// As bases de dados já geradas, consultadas para as capturas e promoções.
+	private final Tablebase tablebase = new Tablebase();
+
+	public TablebaseBuilder(Path directory, int threads) {
+		this.directory = directory;
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Gera (ou carrega, se o arquivo já existir) as bases de dados de todas as combinações com até o número especificado de peças.
+	 *
+	 * maxPieces: o número máximo de peças (de 2 a Tablebase.MAX_PIECES).
+	 * IOException: se um arquivo não puder ser escrito ou lido.
+	 * InterruptedException: se a geração for interrompida.
+	 */
+	public void build(int maxPieces) throws IOException, InterruptedException {
+
+		Files.createDirectories(directory);
+		maxPieces = Math.max(2, Math.min(maxPieces, Tablebase.MAX_PIECES));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (int pieces = 2; pieces <= maxPieces; pieces ++) {
+				for (int men = 0; men <= pieces; men ++) {
+
+					// Gere as combinações do grupo em paralelo
+					List<Callable<Void>> tasks = new ArrayList<>();
+					for (int signature : getSignatures(pieces, men)) {
+						tasks.add(() -> {
+							buildSignature(signature);
+							return null;
+						});
+					}
+					for (Future<Void> f : pool.invokeAll(tasks)) {
+						try {
+							f.get();
+						} catch (ExecutionException e) {
+							throw new IOException(e.getCause());
+						}
+					}
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	// Obtém as combinações com o número de peças e de peças comuns especificados, com pelo menos uma peça de cada jogador.
+	private static List<Integer> getSignatures(int pieces, int men) {
+		List<Integer> signatures = new ArrayList<>();
+		for (int bm = 0; bm <= men; bm ++) {
+			int wm = men - bm;
+			for (int bk = 0; bk <= pieces - men; bk ++) {
+				int wk = pieces - men - bk;
+				if (bm + bk > 0 && wm + wk > 0) {
+					signatures.add(Tablebase.getSignature(bm, bk, wm, wk));
+				}
+			}
+		}
+		return signatures;
+	}
+
+	/*
+	 * Gera a base de dados de uma combinação, escreve o arquivo e o carrega.
+	 *
+	 * signature: a combinação de material.
+	 * IOException: se o arquivo não puder ser escrito.
+	 * IllegalStateException: se as passadas não terminarem antes da distância máxima que um valor guarda.
+	 */
+	private void buildSignature(int signature) throws IOException {
+
+		// O arquivo já existe
+		Path file = directory.resolve(Tablebase.getFileName(signature));
+		if (Files.exists(file)) {
+			tablebase.load(file);
+			System.out.println(file + " loaded");
+			return;
+		}
+
+		// Resolva as posições em passadas
+		long start = System.nanoTime();
+		long size = Tablebase.getSize(signature);
+		byte[][] values = allocate(2 * size);
+		int[] masks = new int[3];
+		Board board = new Board();
+		MoveList list = new MoveList();
+		int external = 0, pass = 0;
+		for (;; pass ++) {
+			boolean changed = false;
+			for (long slot = 0; slot < 2 * size; slot ++) {
+				if (get(values, slot) != 0 ||
+						!Tablebase.getPosition(signature, slot % size, masks)) {
+					continue;
+				}
+				boolean isBlack = slot < size;
+				board.setMasks(masks[0], masks[1], masks[2]);
+				MoveGenerator.generate(board, isBlack, -1, list);
+				int value = solve(signature, size, values, board, isBlack, list, pass);
+				if (value > 0) {
+					set(values, slot, value);
+					changed = true;
+				}
+
+				// Guarde a maior distância das outras combinações, que determina até quando continuar
+				if (pass == 0) {
+					external = Math.max(external, getExternalDistance(signature, board,
+							isBlack, list));
+				}
+			}
+			if (!changed && pass > external) {
+				break;
+			}
+
+			// As posições que faltam seriam gravadas como empates, mas podem ser vitórias mais longas do que o valor consegue guardar
+			if (pass >= Tablebase.MAX_DISTANCE) {
+				throw new IllegalStateException("tablebase " + Tablebase.getFileName(signature)
+						+ " did not converge in " + pass
+						+ " passes (distances too long for the value encoding)");
+			}
+		}
+
+		// Escreva o arquivo e carregue-o
+		write(file, signature, values, size);
+		tablebase.load(file);
+		System.out.printf("%s positions=%d passes=%d %s %.1fs%n", file, 2 * size,
+				pass, summarize(values, 2 * size), (System.nanoTime() - start) / 1e9);
+	}
+
+	/*
+	 * Tenta resolver uma posição na passada atual.
+	 *
+	 * signature: a combinação de material sendo gerada.
+	 * size: o número de índices para cada jogador da vez.
+	 * values: os valores já conhecidos da combinação.
+	 * board: a posição.
+	 * isBlack: a bandeira indicando se é a vez das peças pretas.
+	 * list: os movimentos legais da posição.
+	 * pass: o número da passada.
+	 * o valor da posição (veja Tablebase), ou 0 se ela ainda não puder ser resolvida.
+	 */
+	private int solve(int signature, long size, byte[][] values, Board board,
+			boolean isBlack, MoveList list, int pass) {
+
+		// Sem movimentos, o jogador da vez perdeu
+		if (list.isEmpty()) {
+			return Tablebase.toValue(0);
+		}
+
+		// Procure uma derrota do adversário, ou confirme que todos os movimentos levam a vitórias dele
+		boolean allWins = true;
+		for (int i = 0; i < list.size(); i ++) {
+			int value = getChildValue(signature, size, values, board, isBlack,
+					list.get(i), list.getCaptures(i));
+			boolean known = value > 0 && Tablebase.getDistance(value) < pass;
+			if (known && Tablebase.isLoss(value)) {
+				return Tablebase.toValue(pass);
+			}
+			allWins &= known && Tablebase.isWin(value);
+		}
+
+		return allWins? Tablebase.toValue(pass) : 0;
+	}
+
+	// Obtém a maior distância entre as posições de outras combinações alcançáveis a partir da posição.
+	private int getExternalDistance(int signature, Board board, boolean isBlack,
+			MoveList list) {
+		int max = 0;
+		for (int i = 0; i < list.size(); i ++) {
+			int value = getChildValue(signature, 0, null, board, isBlack,
+					list.get(i), list.getCaptures(i));
+			if (value > 0) {
+				max = Math.max(max, Tablebase.getDistance(value));
+			}
+		}
+		return max;
+	}
+
+	/*
+	 * Obtém o valor da posição depois de um movimento, do ponto de vista do adversário (que passa a ter a vez).
+	 *
+	 * signature: a combinação de material sendo gerada.
+	 * size: o número de índices para cada jogador da vez.
+	 * values: os valores já conhecidos da combinação, ou null para obter apenas os valores de outras combinações.
+	 * board: a posição antes do movimento.
+	 * isBlack: a bandeira indicando se é a vez das peças pretas.
+	 * move: o movimento compactado.
+	 * captures: a máscara das peças capturadas pelo movimento.
+	 * o valor da posição seguinte, ou 0 se ela for desta combinação e ainda não tiver sido resolvida (ou for um empate).
+	 */
+	private int getChildValue(int signature, long size, byte[][] values,
+			Board board, boolean isBlack, int move, int captures) {
+
+		// Faça o movimento nas máscaras
+		int from = 1 << MoveList.getStartIndex(move);
+		int to = 1 << MoveList.getEndIndex(move);
+		int own = board.getPieces(isBlack), opp = board.getPieces(!isBlack);
+		int kings = board.getKings();
+		boolean isKing = (kings & from) != 0 || MoveList.isPromotion(move);
+		own = (own & ~from) | to;
+		opp &= ~captures;
+		kings = (kings & ~from & ~captures) | (isKing? to : 0);
+
+		// O adversário sem peças perdeu
+		if (opp == 0) {
+			return Tablebase.toValue(0);
+		}
+		int black = isBlack? own : opp, white = isBlack? opp : own;
+		if (Tablebase.getSignature(black, white, kings) == signature) {
+			if (values == null) {
+				return 0;
+			}
+			long index = Tablebase.getIndex(black, white, kings);
+			return get(values, isBlack? size + index : index);
+		}
+
+		// As outras combinações já foram geradas
+		int value = tablebase.probe(black, white, kings, !isBlack);
+		if (value == Tablebase.NOT_FOUND) {
+			throw new IllegalStateException("missing tablebase "
+					+ Tablebase.getFileName(Tablebase.getSignature(black, white, kings)));
+		}
+		return value;
+	}
+
+	// Descreve o número de vitórias, derrotas e empates e a maior distância.
+	private static String summarize(byte[][] values, long n) {
+		long wins = 0, losses = 0;
+		int max = 0;
+		for (long slot = 0; slot < n; slot ++) {
+			int value = get(values, slot);
+			if (Tablebase.isWin(value)) {
+				wins ++;
+			} else if (Tablebase.isLoss(value)) {
+				losses ++;
+			}
+			if (value > 0) {
+				max = Math.max(max, Tablebase.getDistance(value));
+			}
+		}
+		return "wins=" + wins + " losses=" + losses + " maxDistance=" + max;
+	}
+
+	// Escreve o arquivo de uma combinação, primeiro em um arquivo temporário, para que um arquivo incompleto nunca seja carregado.
+	private static void write(Path file, int signature, byte[][] values,
+			long size) throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(16);
+			Tablebase.putHeader(header, signature);
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			for (byte[] chunk : values) {
+				ByteBuffer buffer = ByteBuffer.wrap(chunk);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Cria os blocos de valores para o número especificado de posições.
+	private static byte[][] allocate(long n) {
+		int chunks = (int) (((n - 1) >> CHUNK_BITS) + 1);
+		byte[][] values = new byte[chunks][];
+		for (int i = 0; i < chunks; i ++) {
+			values[i] = new byte[(int) Math.min(1L << CHUNK_BITS, n - ((long) i << CHUNK_BITS))];
+		}
+		return values;
+	}
+
+	private static int get(byte[][] values, long slot) {
+		return values[(int) (slot >>> CHUNK_BITS)][(int) (slot & ((1L << CHUNK_BITS) - 1))] & 0xFF;
+	}
+
+	private static void set(byte[][] values, long slot, int value) {
+		values[(int) (slot >>> CHUNK_BITS)][(int) (slot & ((1L << CHUNK_BITS) - 1))] = (byte) value;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int pieces = (args.length > 0)? Integer.parseInt(args[0]) : DEFAULT_PIECES;
+		Path directory = Paths.get((args.length > 1)? args[1] : Tablebase.DEFAULT_PATH);
+		int threads = (args.length > 2)? Integer.parseInt(args[2])
+				: Runtime.getRuntime().availableProcessors();
+		new TablebaseBuilder(directory, threads).build(pieces);
+	}
+}
@@ -0,0 +1,385 @@
+// Descrição: Este programa joga partidas entre duas configurações do computador, sem interface, e mostra a diferença de força entre elas.
+
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import logic.MoveGenerator;
+import logic.OpeningBook;
+import logic.SearchLimits;
+import logic.Tablebase;
+import model.ComputerPlayer;
+import model.Game;
+import model.MoveList;
+
+/* O programa joga partidas entre o motor A e o motor B em várias threads ao mesmo tempo, sem a interface gráfica nem o temporizador dela.
+ * Cada abertura é jogada duas vezes, com as cores trocadas, para que nenhum motor seja favorecido pelas aberturas. As aberturas vêm de um
+ * arquivo (um estado de jogo no formato de Game.getGameState por linha; as linhas vazias ou começando com # são ignoradas) ou são sorteadas
+ * com alguns movimentos aleatórios a partir da posição inicial. Uma partida que passa do número máximo de turnos é considerada empatada.
+ *
+ * No fim (e periodicamente), o programa mostra as vitórias, empates e derrotas do motor A, a diferença de Elo estimada com o intervalo de
+ * confiança de 95%, as partidas por segundo e o tempo médio por movimento de cada motor.
+ *
+ * Uso: java tools.Tournament [opção=valor ...]
+ * Opções gerais: games (número de partidas, padrão 100), threads (partidas simultâneas, padrão o número de processadores), openings
+ * (arquivo de aberturas), random (movimentos sorteados de cada abertura gerada, padrão 4), plies (turnos máximos, padrão 200), seed.
+ * Opções de cada motor (com o prefixo a. ou b.): depth (padrão ComputerPlayer.DEFAULT_DEPTH), nodes, time (milissegundos por movimento),
+ * threads (threads da busca), book e tablebase (true ou false, padrão false).
+ * Exemplo: java tools.Tournament games=1000 a.depth=8 b.depth=6 random=6
+ */
+public class Tournament {
+
+	// O resultado de uma partida do ponto de vista do motor A.
+	private static final int WIN = 1, DRAW = 0, LOSS = -1;
+
+	// Os motores.
+	private final Engine a, b;
+
+	// As aberturas.
+	private final List<String> openings;
+
+	// O número máximo de turnos de uma partida.
+	private final int maxPlies;
+
+	// O número de partidas simultâneas.
+	private final int threads;
+
+	// O número de vitórias, empates e derrotas do motor A.
+	private int wins, draws, losses;
+
+	// O tempo total (em nanossegundos) e o número de movimentos de cada motor.
+	private long timeA, timeB, movesA, movesB;
+
+	public Tournament(Engine a, Engine b, List<String> openings, int maxPlies,
+			int threads) {
+		this.a = a;
+		this.b = b;
+		this.openings = openings;
+		this.maxPlies = Math.max(1, maxPlies);
+		this.threads = Math.max(1, threads);
+	}
+
+	/*
+	 * Joga as partidas. A partida i usa a abertura i / 2, e o motor A tem as pretas nas partidas pares.
+	 *
+	 * games: o número de partidas.
+	 * InterruptedException: se as partidas forem interrompidas.
+	 */
+	public void play(int games) throws InterruptedException {
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ThreadLocal<ComputerPlayer[]> players = ThreadLocal.withInitial(
+				() -> new ComputerPlayer[] {a.createPlayer(), b.createPlayer()});
+		try {
+
+			// Jogue as partidas
+			CompletionService<long[]> results = new ExecutorCompletionService<>(pool);
+			for (int i = 0; i < games; i ++) {
+				String opening = openings.get((i / 2) % openings.size());
+				boolean isBlackA = (i % 2 == 0);
+				results.submit(() -> playGame(players.get(), opening, isBlackA));
+			}
+
+			// Some os resultados
+			long start = System.nanoTime();
+			int step = Math.max(1, Math.min(100, games / 10));
+			for (int i = 0; i < games; i ++) {
+				long[] result = results.take().get();
+				add(result);
+				if ((i + 1) % step == 0 || i + 1 == games) {
+					System.out.println(getReport((System.nanoTime() - start) / 1e9));
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/*
+	 * Joga uma partida.
+	 *
+	 * players: os jogadores do motor A e do motor B.
+	 * opening: o estado inicial do jogo.
+	 * isBlackA: a bandeira indicando se o motor A joga com as pretas.
+	 * o resultado do ponto de vista do motor A, o tempo e o número de movimentos do motor A, e o tempo e o número de movimentos do motor B.
+	 */
+	private long[] playGame(ComputerPlayer[] players, String opening,
+			boolean isBlackA) {
+
+		Game game = new Game(opening);
+		for (ComputerPlayer player : players) {
+			player.getSearch().getTable().clear();
+		}
+		long[] result = new long[5];
+		for (int ply = 0; ply < maxPlies; ply ++) {
+
+			// Sem movimentos, o jogador da vez perdeu
+			boolean isTurnA = (game.isP1Turn() == isBlackA);
+			if (game.isGameOver()) {
+				result[0] = isTurnA? LOSS : WIN;
+				return result;
+			}
+
+			// Faça o movimento do jogador da vez
+			int i = isTurnA? 1 : 3;
+			long start = System.nanoTime();
+			players[isTurnA? 0 : 1].updateGame(game);
+			result[i] += System.nanoTime() - start;
+			result[i + 1] ++;
+		}
+
+		// O último movimento permitido pode ter deixado o adversário sem movimentos; só sem vencedor a partida é empatada
+		if (game.isGameOver()) {
+			result[0] = (game.isP1Turn() == isBlackA)? LOSS : WIN;
+		} else {
+			result[0] = DRAW;
+		}
+		return result;
+	}
+
+	// Soma o resultado de uma partida.
+	private void add(long[] result) {
+		if (result[0] == WIN) {
+			this.wins ++;
+		} else if (result[0] == LOSS) {
+			this.losses ++;
+		} else {
+			this.draws ++;
+		}
+		this.timeA += result[1];
+		this.movesA += result[2];
+		this.timeB += result[3];
+		this.movesB += result[4];
+	}
+
+	// Obtém o número de partidas jogadas.
+	public int getGames() {
+		return wins + draws + losses;
+	}
+
+	public int getWins() {
+		return wins;
+	}
+
+	public int getDraws() {
+		return draws;
+	}
+
+	public int getLosses() {
+		return losses;
+	}
+
+	// Obtém a pontuação do motor A (vitórias mais metade dos empates, sobre as partidas).
+	public double getScore() {
+		int n = getGames();
+		return (n == 0)? 0.5 : (wins + draws / 2.0) / n;
+	}
+
+	// Obtém a diferença de Elo estimada do motor A para o motor B.
+	public double getElo() {
+		return toElo(getScore());
+	}
+
+	// Obtém a metade da largura do intervalo de confiança de 95% da diferença de Elo.
+	public double getEloError() {
+		int n = getGames();
+		if (n == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		// O desvio padrão da pontuação média, com a variância de cada partida (1, 1/2 ou 0)
+		double s = getScore();
+		double variance = (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s)
+				+ losses * s * s) / n;
+		double error = 1.96 * Math.sqrt(variance / n);
+		return (toElo(s + error) - toElo(s - error)) / 2;
+	}
+
+	// Converte uma pontuação esperada (de 0 a 1) em uma diferença de Elo.
+	private static double toElo(double score) {
+		score = Math.max(1e-6, Math.min(1 - 1e-6, score));
+		return -400 * Math.log10(1 / score - 1);
+	}
+
+	// Obtém um resumo dos resultados.
+	// seconds: o tempo desde o início das partidas.
+	public String getReport(double seconds) {
+		int n = getGames();
+		return String.format("%d games: +%d =%d -%d score=%.3f elo=%+.1f +/- %.1f"
+				+ " (%.2f games/s, A %.1f ms/move, B %.1f ms/move)", n, wins, draws,
+				losses, getScore(), getElo(), getEloError(), n / seconds,
+				(movesA == 0)? 0 : timeA / 1e6 / movesA,
+				(movesB == 0)? 0 : timeB / 1e6 / movesB);
+	}
+
+	/*
+	 * Gera aberturas com movimentos aleatórios a partir da posição inicial, sem aberturas repetidas nem aberturas em que o jogo já acabou.
+	 *
+	 * count: o número de aberturas.
+	 * plies: o número de movimentos aleatórios de cada abertura.
+	 * seed: a semente do sorteio.
+	 * os estados de jogo das aberturas.
+	 */
+	public static List<String> randomOpenings(int count, int plies, long seed) {
+		Random random = new Random(seed);
+		List<String> openings = new ArrayList<>();
+		MoveList moves = new MoveList();
+		for (int tries = 0; openings.size() < count && tries < 100 * count; tries ++) {
+			Game game = new Game();
+			for (int ply = 0; ply < plies; ply ++) {
+				MoveGenerator.generate(game.getBoardView(), game.isP1Turn(),
+						game.getSkipIndex(), moves);
+				if (moves.isEmpty()) {
+					break;
+				}
+				int i = random.nextInt(moves.size());
+				game.makeMove(moves.get(i), moves.getCaptures(i));
+			}
+			String state = game.getGameState();
+			if (!game.isGameOver() && !openings.contains(state)) {
+				openings.add(state);
+			}
+		}
+		if (openings.isEmpty()) {
+			openings.add(new Game().getGameState());
+		}
+		return openings;
+	}
+
+	// Lê as aberturas de um arquivo, com um estado de jogo por linha.
+	public static List<String> readOpenings(String file) throws IOException {
+		List<String> openings = new ArrayList<>();
+		for (String line : Files.readAllLines(Paths.get(file))) {
+			line = line.trim();
+			if (!line.isEmpty() && !line.startsWith("#")) {
+				openings.add(line);
+			}
+		}
+		if (openings.isEmpty()) {
+			throw new IOException("no openings in " + file);
+		}
+		return openings;
+	}
+
+	// A configuração de um motor.
+	public static class Engine {
+
+		// O nome do motor.
+		private final String name;
+
+		// Os limites de cada busca.
+		private final SearchLimits limits = new SearchLimits(
+				ComputerPlayer.DEFAULT_DEPTH);
+
+		// O número de threads da busca.
+		private int threads = 1;
+
+		// As bandeiras indicando se o livro de aberturas e as bases de dados de finais são usados.
+		private boolean book, tablebase;
+
+		public Engine(String name) {
+			this.name = name;
+		}
+
+		// Define uma opção do motor (depth, nodes, time, threads, book ou tablebase).
+		// IllegalArgumentException: se a opção não existir.
+		public void set(String option, String value) {
+			switch (option) {
+			case "depth":
+				limits.setDepth(Integer.parseInt(value));
+				break;
+			case "nodes":
+				limits.setNodes(Long.parseLong(value));
+				break;
+			case "time":
+				limits.setMoveTime(Long.parseLong(value));
+				break;
+			case "threads":
+				this.threads = Math.max(1, Integer.parseInt(value));
+				break;
+			case "book":
+				this.book = Boolean.parseBoolean(value);
+				break;
+			case "tablebase":
+				this.tablebase = Boolean.parseBoolean(value);
+				break;
+			default:
+				throw new IllegalArgumentException("unknown option: " + name
+						+ "." + option);
+			}
+		}
+
+		// Cria um jogador com esta configuração.
+		public ComputerPlayer createPlayer() {
+			ComputerPlayer player = new ComputerPlayer(limits.getDepth(), threads);
+			player.setLimits(limits);
+			player.setBook(book? OpeningBook.getDefault() : null);
+			player.getSearch().setTablebase(tablebase? Tablebase.getDefault() : null);
+			return player;
+		}
+
+		@Override
+		public String toString() {
+			return name + "[limits=" + limits + ", threads=" + threads
+					+ ", book=" + book + ", tablebase=" + tablebase + "]";
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		// Leia as opções
+		Engine a = new Engine("a"), b = new Engine("b");
+		int games = 100, threads = Runtime.getRuntime().availableProcessors();
+		int random = 4, plies = 200;
+		long seed = 1;
+		String openingFile = null;
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq < 0) {
+				throw new IllegalArgumentException("expected option=value: " + arg);
+			}
+			String option = arg.substring(0, eq), value = arg.substring(eq + 1);
+			if (option.startsWith("a.")) {
+				a.set(option.substring(2), value);
+			} else if (option.startsWith("b.")) {
+				b.set(option.substring(2), value);
+			} else if (option.equals("games")) {
+				games = Integer.parseInt(value);
+			} else if (option.equals("threads")) {
+				threads = Integer.parseInt(value);
+			} else if (option.equals("openings")) {
+				openingFile = value;
+			} else if (option.equals("random")) {
+				random = Integer.parseInt(value);
+			} else if (option.equals("plies")) {
+				plies = Integer.parseInt(value);
+			} else if (option.equals("seed")) {
+				seed = Long.parseLong(value);
+			} else {
+				throw new IllegalArgumentException("unknown option: " + option);
+			}
+		}
+
+		// Jogue as partidas
+		List<String> openings = (openingFile != null)? readOpenings(openingFile)
+				: randomOpenings((games + 1) / 2, random, seed);
+		System.out.println("A: " + a);
+		System.out.println("B: " + b);
+		System.out.println(openings.size() + " openings, " + games + " games, "
+				+ threads + " threads");
+		Tournament tournament = new Tournament(a, b, openings, plies, threads);
+		tournament.play(games);
+	}
+}
@@ -10,16 +10,24 @@ import java.awt.Point;
 import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.JButton;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
-import logic.MoveGenerator;
+import logic.Search;
 import model.Board;
+import model.ComputerPlayer;
 import model.Game;
 import model.HumanPlayer;
+import model.MoveList;
 import model.Player;
+import model.PositionCodec;
 
 
 // A classe é um componente de interface gráfica do usuário capaz de desenhar qualquer estado de jogo de damas. Ele também lida com os turnos do jogador. Para jogadores humanos, isso significa interagir e selecionar peças no tabuleiro de damas. Para jogadores não humanos, isso significa usar a lógica implementada pelo próprio objeto do jogador especificado.
@@ -27,11 +35,24 @@ public class CheckerBoard extends JButton {
 
 	private static final long serialVersionUID = -6014690893709316364L;
 	
-	// A quantidade de milissegundos antes que um jogador de computador faça uma jogada.
+	// A quantidade mínima de milissegundos antes que a jogada de um jogador de computador seja mostrada.
 	private static final int TIMER_DELAY = 1000;
 	
+	// O intervalo, em milissegundos, entre as atualizações do progresso de um jogador de computador.
+	private static final int PROGRESS_DELAY = 200;
+	
 	// O número de pixels de preenchimento entre a borda deste componente e o tabuleiro real desenhado.
 	private static final int PADDING = 16;
+	
+	// O número de pixels entre a borda de um ladrilho e a peça desenhada nele.
+	private static final int BOX_PADDING = 4;
+	
+	// A cor do destaque das Damas.
+	private static final Color KING_HIGHLIGHT = new Color(255, 240, 0);
+	
+	// A fonte e a cor de fundo do sinal de fim de jogo.
+	private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 20);
+	private static final Color GAME_OVER_BACKGROUND = new Color(240, 240, 255);
 
 	// O jogo de damas que está sendo jogado neste componente.
 	private Game game;
@@ -60,9 +81,60 @@ public class CheckerBoard extends JButton {
 	// Uma bandeira de conveniência para verificar se o jogo acabou.
 	private boolean isGameOver;
 	
-	// O cronômetro para controlar o quão rápido um jogador de computador faz um movimento.
+	// O cronômetro que redesenha o progresso da jogada de computador em andamento.
 	private Timer timer;
 	
+	// O executor que calcula as jogadas dos jogadores de computador fora da thread de eventos do Swing, uma de cada vez.
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "CheckerBoard-player");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// A jogada de computador em andamento, ou null se não houver.
+	private Future<?> task;
+	
+	// O jogador da jogada em andamento.
+	private Player thinking;
+	
+	// O estado codificado do jogo no início da jogada em andamento.
+	private final long[] taskStart = new long[PositionCodec.LONGS];
+	
+	// O número da jogada em andamento, incrementado a cada cancelamento, para que o resultado de uma jogada cancelada seja descartado.
+	private int generation;
+	
+	// A análise do jogador de computador na vez do adversário humano (veja Player.ponder), ou null se não houver.
+	private Future<?> ponderTask;
+	
+	// O jogador que está analisando na vez do adversário.
+	private Player ponderer;
+	
+	// O estado codificado do jogo no início da análise na vez do adversário.
+	private final long[] ponderStart = new long[PositionCodec.LONGS];
+	
+	// Os estados codificados (veja PositionCodec) antes e depois de um movimento do jogador humano, reutilizados a cada clique.
+	private final long[] expected = new long[PositionCodec.LONGS],
+			newState = new long[PositionCodec.LONGS];
+	
+	// O tamanho de um ladrilho e o canto superior esquerdo do tabuleiro, calculados a partir do tamanho do componente (veja layoutBoard).
+	private int boxSize, offsetX, offsetY;
+	
+	// A imagem do tabuleiro vazio (borda e ladrilhos), desenhada de novo apenas quando o tamanho, a escala da tela ou as cores mudam.
+	private BufferedImage boardImage;
+	
+	// As imagens das peças indexadas pelo ID (veja Board), desenhadas de novo apenas quando o tamanho ou a escala da tela mudam.
+	private final BufferedImage[] sprites = new BufferedImage[8];
+	
+	// O tamanho de ladrilho e a escala da tela das imagens guardadas.
+	private int imageBoxSize;
+	private double imageScale;
+	
+	// O estado (peças, vez, seleção e fim de jogo) cujo desenho já foi pedido, para que apenas o que mudou depois dele seja redesenhado.
+	private boolean scheduled;
+	private int scheduledBlack, scheduledWhite, scheduledKings;
+	private boolean scheduledP1Turn, scheduledGameOver, scheduledSelectionValid;
+	private Point scheduledSelected;
+	
 	public CheckerBoard(CheckersWindow window) {
 		this(window, new Game(), null, null);
 	}
@@ -85,34 +157,154 @@ public class CheckerBoard extends JButton {
 		setPlayer2(player2);
 	}
 	
-	// Verifica se o jogo acabou e redesenha os componentes gráficos.
+	// Verifica se o jogo acabou, inicia a jogada do jogador de computador da vez (se houver) e redesenha os componentes gráficos.
 	public void update() {
-		runPlayer();
 		this.isGameOver = game.isGameOver();
-		repaint();
+		runPlayer();
+		repaintChanges();
 	}
 	
+	// Inicia a jogada do jogador atual se ele não for humano. A jogada é calculada em uma cópia do jogo por uma thread do executor e aplicada
+	// na thread de eventos (veja finishPlayer), apenas se o jogo não tiver mudado nesse meio tempo.
 	private void runPlayer() {
 		
+		// O jogo mudou por fora (por exemplo, recomeçou), então a jogada em andamento não vale mais
+		if (task != null && !PositionCodec.equals(game, taskStart, 0)) {
+			cancelPlayer();
+		}
+		
+		// A análise na vez do adversário termina assim que ele se move
+		if (ponderTask != null && !PositionCodec.equals(game, ponderStart, 0)) {
+			stopPonder();
+		}
+		
 		// Nada para fazer
 		Player player = getCurrentPlayer();
-		if (player == null || player.isHuman()) {
+		if (player == null || isGameOver || task != null) {
 			return;
 		}
 		
-		// Definir um cronômetro para executar
-		this.timer = new Timer(TIMER_DELAY, new ActionListener() {
-
-			@Override
-			public void actionPerformed(ActionEvent e) {
-				getCurrentPlayer().updateGame(game);
-				timer.stop();
-				update();
+		// Enquanto o humano pensa, o adversário de computador analisa a resposta prevista
+		if (player.isHuman()) {
+			startPonder();
+			return;
+		}
+		
+		// Calcule a jogada fora da thread de eventos
+		final int id = generation;
+		final Game copy = game.copy();
+		final long[] start = new long[PositionCodec.LONGS];
+		PositionCodec.encode(copy, start, 0);
+		PositionCodec.encode(copy, taskStart, 0);
+		this.thinking = player;
+		this.task = executor.submit(() -> {
+			long begin = System.nanoTime();
+			player.updateGame(copy);
+			long[] end = new long[PositionCodec.LONGS];
+			PositionCodec.encode(copy, end, 0);
+			
+			// Mostre a jogada depois do tempo mínimo
+			long wait = TIMER_DELAY - (System.nanoTime() - begin) / 1000000;
+			if (wait > 0) {
+				Thread.sleep(wait);
 			}
+			SwingUtilities.invokeLater(() -> finishPlayer(id, start, end));
+			return null;
 		});
+		
+		// Mostre o progresso enquanto o jogador pensa
+		this.timer = new Timer(PROGRESS_DELAY, e -> repaintProgress());
 		this.timer.start();
+		repaintProgress();
 	}
 	
+	// Aplica a jogada de computador terminada, se ela não tiver sido cancelada, e passa a vez.
+	// id: o número da jogada.
+	// start: o estado codificado do jogo no início da jogada.
+	// end: o estado codificado do jogo depois da jogada.
+	private void finishPlayer(int id, long[] start, long[] end) {
+		
+		// A jogada foi cancelada
+		if (id != generation) {
+			return;
+		}
+		stopPlayer();
+		setGameState(true, end, start);
+		update();
+	}
+	
+	// Inicia a análise do jogador de computador adversário durante a vez do jogador humano, se ainda não houver uma. A análise usa o mesmo
+	// executor das jogadas, que só começam depois que ela é interrompida (veja stopPonder).
+	private void startPonder() {
+		
+		// Nada para fazer
+		Player opponent = game.isP1Turn()? player2 : player1;
+		if (ponderTask != null || opponent == null || opponent.isHuman()) {
+			return;
+		}
+		
+		// Analise em uma cópia do jogo
+		final Game copy = game.copy();
+		PositionCodec.encode(copy, ponderStart, 0);
+		this.ponderer = opponent;
+		this.ponderTask = executor.submit(() -> opponent.ponder(copy));
+	}
+	
+	// Interrompe a análise na vez do adversário, se houver.
+	private void stopPonder() {
+		if (ponderTask != null) {
+			ponderer.cancel();
+			ponderTask.cancel(true);
+		}
+		this.ponderTask = null;
+		this.ponderer = null;
+	}
+	
+	// Cancela a jogada de computador em andamento, se houver: a busca é interrompida e o seu resultado é descartado. A análise na vez do
+	// adversário também é interrompida. Deve ser chamado na thread de eventos.
+	public void cancelPlayer() {
+		this.generation ++;
+		if (task != null) {
+			thinking.cancel();
+			task.cancel(true);
+		}
+		stopPlayer();
+		stopPonder();
+	}
+	
+	// Esquece a jogada em andamento e para o cronômetro do progresso.
+	private void stopPlayer() {
+		this.task = null;
+		this.thinking = null;
+		if (timer != null) {
+			timer.stop();
+			this.timer = null;
+		}
+		repaintProgress();
+	}
+	
+	// Pede o redesenho da linha do progresso, acima do tabuleiro.
+	private void repaintProgress() {
+		layoutBoard();
+		repaint(0, offsetY - 16, getWidth(), 15);
+	}
+	
+	// Obtém o texto do progresso do jogador que está pensando: a profundidade completada, as posições visitadas e o melhor movimento até
+	// agora, se o jogador for um ComputerPlayer.
+	private String getProgressMessage() {
+		if (!(thinking instanceof ComputerPlayer)) {
+			return "Pensando...";
+		}
+		Search search = ((ComputerPlayer) thinking).getSearch();
+		int depth = search.getDepth(), move = search.getBestMove();
+		String msg = "Pensando: profundidade " + depth + ", "
+				+ search.getProgressNodes() + " posições";
+		if (depth > 0 && move != MoveList.NO_MOVE) {
+			msg += ", melhor " + (MoveList.getStartIndex(move) + 1)
+					+ (MoveList.isSkip(move)? "x" : "-") + (MoveList.getEndIndex(move) + 1);
+		}
+		return msg;
+	}
 	
 	public synchronized boolean setGameState(boolean testValue,
 			String newState, String expected) {
@@ -124,148 +316,285 @@ public class CheckerBoard extends JButton {
 		
 		// Atualize o estado do jogo
 		this.game.setGameState(newState);
-		repaint();
+		repaintChanges();
+		
+		return true;
+	}
+	
+	// Atualiza o estado do jogo se ele for igual ao esperado, comparando os estados codificados por PositionCodec em vez de strings.
+	// testValue: a bandeira indicando se o estado atual deve ser comparado com o esperado.
+	// newState: o novo estado codificado.
+	// expected: o estado esperado codificado.
+	// verdadeiro se e somente se o estado do jogo foi atualizado.
+	public synchronized boolean setGameState(boolean testValue,
+			long[] newState, long[] expected) {
+		
+		// Teste o valor se solicitado
+		if (testValue && !PositionCodec.equals(game, expected, 0)) {
+			return false;
+		}
+		
+		// Atualize o estado do jogo
+		PositionCodec.decode(newState, 0, game);
+		repaintChanges();
 		
 		return true;
 	}
 	
 	
-	// Desenha o estado atual do jogo de damas.
+	// Desenha o estado atual do jogo de damas. O tabuleiro e as peças são copiados de imagens guardadas, e apenas os ladrilhos dentro da
+	// área a redesenhar são considerados.
 	@Override
 	public void paint(Graphics g) {
 		super.paint(g);
 		
 		Graphics2D g2d = (Graphics2D) g;
-		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-				RenderingHints.VALUE_ANTIALIAS_ON);
-		Game game = this.game.copy();
-		
-		// Realizar cálculos
-		final int BOX_PADDING = 4;
-		final int W = getWidth(), H = getHeight();
-		final int DIM = W < H? W : H, BOX_SIZE = (DIM - 2 * PADDING) / 8;
-		final int OFFSET_X = (W - BOX_SIZE * 8) / 2;
-		final int OFFSET_Y = (H - BOX_SIZE * 8) / 2;
-		final int CHECKER_SIZE = Math.max(0, BOX_SIZE - 2 * BOX_PADDING);
+		layoutBoard();
+		updateImages(g2d.getTransform().getScaleX());
+		final int W = getWidth();
+		final int BOARD_SIZE = boxSize * 8;
 		
 		// Desenhar tabuleiro de damas
-		g.setColor(Color.BLACK);
-		g.drawRect(OFFSET_X - 1, OFFSET_Y - 1, BOX_SIZE * 8 + 1, BOX_SIZE * 8 + 1);
-		g.setColor(lightTile);
-		g.fillRect(OFFSET_X, OFFSET_Y, BOX_SIZE * 8, BOX_SIZE * 8);
-		g.setColor(darkTile);
-		for (int y = 0; y < 8; y ++) {
-			for (int x = (y + 1) % 2; x < 8; x += 2) {
-				g.fillRect(OFFSET_X + x * BOX_SIZE, OFFSET_Y + y * BOX_SIZE,
-						BOX_SIZE, BOX_SIZE);
-			}
-		}
+		g.drawImage(boardImage, offsetX - 1, offsetY - 1, BOARD_SIZE + 2,
+				BOARD_SIZE + 2, null);
 		
 		// Destaque o bloco selecionado se for válido
 		if (Board.isValidPoint(selected)) {
 			g.setColor(selectionValid? Color.GREEN : Color.RED);
-			g.fillRect(OFFSET_X + selected.x * BOX_SIZE,
-					OFFSET_Y + selected.y * BOX_SIZE,
-					BOX_SIZE, BOX_SIZE);
+			g.fillRect(offsetX + selected.x * boxSize,
+					offsetY + selected.y * boxSize,
+					boxSize, boxSize);
 		}
 		
 		// Desenhe as damas
-		Board b = game.getBoard();
-		for (int y = 0; y < 8; y ++) {
-			int cy = OFFSET_Y + y * BOX_SIZE + BOX_PADDING;
-			for (int x = (y + 1) % 2; x < 8; x += 2) {
-				int id = b.get(x, y);
-				
-				// Vazio, apenas pule
-				if (id == Board.EMPTY) {
-					continue;
-				}
-				
-				int cx = OFFSET_X + x * BOX_SIZE + BOX_PADDING;
-				
-				// Peça preta
-				if (id == Board.BLACK_CHECKER) {
-					g.setColor(Color.DARK_GRAY);
-					g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.LIGHT_GRAY);
-					g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.BLACK);
-					g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.LIGHT_GRAY);
-					g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-				}
-				
-				// Dama preta
-				else if (id == Board.BLACK_KING) {
-					g.setColor(Color.DARK_GRAY);
-					g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.LIGHT_GRAY);
-					g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.DARK_GRAY);
-					g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.LIGHT_GRAY);
-					g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.BLACK);
-					g.fillOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
-				}
-				
-				// Peça branca
-				else if (id == Board.WHITE_CHECKER) {
-					g.setColor(Color.LIGHT_GRAY);
-					g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.DARK_GRAY);
-					g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.WHITE);
-					g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.DARK_GRAY);
-					g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-				}
-				
-				// Dama branca
-				else if (id == Board.WHITE_KING) {
-					g.setColor(Color.LIGHT_GRAY);
-					g.fillOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.DARK_GRAY);
-					g.drawOval(cx + 1, cy + 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.LIGHT_GRAY);
-					g.fillOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.DARK_GRAY);
-					g.drawOval(cx, cy, CHECKER_SIZE, CHECKER_SIZE);
-					g.setColor(Color.WHITE);
-					g.fillOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
-				}
-				
-				// Qualquer dama (adicione alguns destaques extras)
-				if (id == Board.BLACK_KING || id == Board.WHITE_KING) {
-					g.setColor(new Color(255, 240,0));
-					g.drawOval(cx - 1, cy - 2, CHECKER_SIZE, CHECKER_SIZE);
-					g.drawOval(cx + 1, cy, CHECKER_SIZE - 4, CHECKER_SIZE - 4);
-				}
+		Board b = game.getBoardView();
+		int black = b.getBlack(), kings = b.getKings();
+		boolean isP1Turn = game.isP1Turn();
+		for (int pieces = black | b.getWhite(); pieces != 0; pieces &= pieces - 1) {
+			int i = Integer.numberOfTrailingZeros(pieces), bit = 1 << i;
+			int y = i / 4, x = 2 * (i % 4) + (y + 1) % 2;
+			int tx = offsetX + x * boxSize, ty = offsetY + y * boxSize;
+			if (!g.hitClip(tx, ty, boxSize, boxSize)) {
+				continue;
 			}
+			int id = ((black & bit) != 0)?
+					(((kings & bit) != 0)? Board.BLACK_KING : Board.BLACK_CHECKER) :
+					(((kings & bit) != 0)? Board.WHITE_KING : Board.WHITE_CHECKER);
+			g.drawImage(sprites[id], tx, ty, boxSize, boxSize, null);
 		}
 		
 		// Desenhe o sinal de turno do jogador
-		String msg = game.isP1Turn()? "Turno do Jogador 1" : "Turno do Jogador 2";
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+				RenderingHints.VALUE_ANTIALIAS_ON);
+		String msg = isP1Turn? "Turno do Jogador 1" : "Turno do Jogador 2";
 		int width = g.getFontMetrics().stringWidth(msg);
-		Color back = game.isP1Turn()? Color.BLACK : Color.WHITE;
-		Color front = game.isP1Turn()? Color.WHITE : Color.BLACK;
+		Color back = isP1Turn? Color.BLACK : Color.WHITE;
+		Color front = isP1Turn? Color.WHITE : Color.BLACK;
 		g.setColor(back);
-		g.fillRect(W / 2 - width / 2 - 5, OFFSET_Y + 8 * BOX_SIZE + 2,
+		g.fillRect(W / 2 - width / 2 - 5, offsetY + BOARD_SIZE + 2,
 				width + 10, 15);
 		g.setColor(front);
-		g.drawString(msg, W / 2 - width / 2, OFFSET_Y + 8 * BOX_SIZE + 2 + 11);
+		g.drawString(msg, W / 2 - width / 2, offsetY + BOARD_SIZE + 2 + 11);
+		
+		// Desenhe o progresso do jogador de computador
+		if (thinking != null) {
+			msg = getProgressMessage();
+			width = g.getFontMetrics().stringWidth(msg);
+			g.setColor(back);
+			g.fillRect(W / 2 - width / 2 - 5, offsetY - 16, width + 10, 14);
+			g.setColor(front);
+			g.drawString(msg, W / 2 - width / 2, offsetY - 16 + 11);
+		}
 		
 		// Desenhe um sinal de fim de jogo
 		if (isGameOver) {
-			g.setFont(new Font("Arial", Font.BOLD, 20));
+			g.setFont(GAME_OVER_FONT);
 			msg = "Fim de Jogo!";
 			width = g.getFontMetrics().stringWidth(msg);
-			g.setColor(new Color(240, 240, 255));
+			g.setColor(GAME_OVER_BACKGROUND);
 			g.fillRoundRect(W / 2 - width / 2 - 5,
-					OFFSET_Y + BOX_SIZE * 4 - 16,
+					offsetY + boxSize * 4 - 16,
 					width + 10, 30, 10, 10);
 			g.setColor(Color.RED);
-			g.drawString(msg, W / 2 - width / 2, OFFSET_Y + BOX_SIZE * 4 + 7);
+			g.drawString(msg, W / 2 - width / 2, offsetY + boxSize * 4 + 7);
+		}
+	}
+	
+	// Calcula o tamanho dos ladrilhos e a posição do tabuleiro a partir do tamanho atual do componente.
+	private void layoutBoard() {
+		final int W = getWidth(), H = getHeight();
+		final int DIM = W < H? W : H;
+		this.boxSize = Math.max(0, (DIM - 2 * PADDING) / 8);
+		this.offsetX = (W - boxSize * 8) / 2;
+		this.offsetY = (H - boxSize * 8) / 2;
+	}
+	
+	// Desenha de novo as imagens do tabuleiro e das peças se o tamanho dos ladrilhos ou a escala da tela mudaram. As imagens têm a resolução
+	// da tela (o tamanho em pixels lógicos vezes a escala), para que continuem nítidas em telas de alta densidade.
+	// scale: a escala da tela (1 em telas comuns).
+	private void updateImages(double scale) {
+		
+		// Nada mudou
+		if (boardImage != null && imageBoxSize == boxSize && imageScale == scale) {
+			return;
+		}
+		this.imageBoxSize = boxSize;
+		this.imageScale = scale;
+		
+		// Desenhar tabuleiro de damas
+		final int BOARD_SIZE = boxSize * 8;
+		this.boardImage = createImage(BOARD_SIZE + 2, scale);
+		Graphics2D g = boardImage.createGraphics();
+		g.scale(scale, scale);
+		g.setColor(Color.BLACK);
+		g.drawRect(0, 0, BOARD_SIZE + 1, BOARD_SIZE + 1);
+		g.setColor(lightTile);
+		g.fillRect(1, 1, BOARD_SIZE, BOARD_SIZE);
+		g.setColor(darkTile);
+		for (int y = 0; y < 8; y ++) {
+			for (int x = (y + 1) % 2; x < 8; x += 2) {
+				g.fillRect(1 + x * boxSize, 1 + y * boxSize, boxSize, boxSize);
+			}
+		}
+		g.dispose();
+		
+		// Desenhe as damas
+		final int[] IDS = {Board.BLACK_CHECKER, Board.BLACK_KING,
+				Board.WHITE_CHECKER, Board.WHITE_KING};
+		for (int id : IDS) {
+			this.sprites[id] = createImage(boxSize, scale);
+			g = sprites[id].createGraphics();
+			g.scale(scale, scale);
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+					RenderingHints.VALUE_ANTIALIAS_ON);
+			drawChecker(g, id, BOX_PADDING, BOX_PADDING,
+					Math.max(0, boxSize - 2 * BOX_PADDING));
+			g.dispose();
+		}
+	}
+	
+	// Cria uma imagem transparente quadrada com o tamanho em pixels lógicos especificado, na resolução da tela.
+	private static BufferedImage createImage(int size, double scale) {
+		int pixels = Math.max(1, (int) Math.ceil(size * scale));
+		return new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_ARGB);
+	}
+	
+	/*
+	 * Desenha uma peça.
+	 * 
+	 * g: onde a peça é desenhada.
+	 * id: o ID da peça (veja Board).
+	 * cx: a coordenada x do canto da peça.
+	 * cy: a coordenada y do canto da peça.
+	 * size: o diâmetro da peça.
+	 */
+	private static void drawChecker(Graphics g, int id, int cx, int cy, int size) {
+		
+		// Peça preta
+		if (id == Board.BLACK_CHECKER) {
+			g.setColor(Color.DARK_GRAY);
+			g.fillOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.LIGHT_GRAY);
+			g.drawOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.BLACK);
+			g.fillOval(cx, cy, size, size);
+			g.setColor(Color.LIGHT_GRAY);
+			g.drawOval(cx, cy, size, size);
+		}
+		
+		// Dama preta
+		else if (id == Board.BLACK_KING) {
+			g.setColor(Color.DARK_GRAY);
+			g.fillOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.LIGHT_GRAY);
+			g.drawOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.DARK_GRAY);
+			g.fillOval(cx, cy, size, size);
+			g.setColor(Color.LIGHT_GRAY);
+			g.drawOval(cx, cy, size, size);
+			g.setColor(Color.BLACK);
+			g.fillOval(cx - 1, cy - 2, size, size);
+		}
+		
+		// Peça branca
+		else if (id == Board.WHITE_CHECKER) {
+			g.setColor(Color.LIGHT_GRAY);
+			g.fillOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.DARK_GRAY);
+			g.drawOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.WHITE);
+			g.fillOval(cx, cy, size, size);
+			g.setColor(Color.DARK_GRAY);
+			g.drawOval(cx, cy, size, size);
+		}
+		
+		// Dama branca
+		else if (id == Board.WHITE_KING) {
+			g.setColor(Color.LIGHT_GRAY);
+			g.fillOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.DARK_GRAY);
+			g.drawOval(cx + 1, cy + 2, size, size);
+			g.setColor(Color.LIGHT_GRAY);
+			g.fillOval(cx, cy, size, size);
+			g.setColor(Color.DARK_GRAY);
+			g.drawOval(cx, cy, size, size);
+			g.setColor(Color.WHITE);
+			g.fillOval(cx - 1, cy - 2, size, size);
+		}
+		
+		// Qualquer dama (adicione alguns destaques extras)
+		if (id == Board.BLACK_KING || id == Board.WHITE_KING) {
+			g.setColor(KING_HIGHLIGHT);
+			g.drawOval(cx - 1, cy - 2, size, size);
+			g.drawOval(cx + 1, cy, size - 4, size - 4);
+		}
+	}
+	
+	// Pede o redesenho apenas do que mudou desde o último pedido: os ladrilhos cujas peças mudaram, os ladrilhos da seleção antiga e da nova
+	// e o sinal de turno. O componente inteiro é redesenhado no primeiro pedido e quando o jogo acaba ou recomeça.
+	private void repaintChanges() {
+		
+		// Redesenhe tudo
+		Board b = game.getBoardView();
+		if (!scheduled || isGameOver != scheduledGameOver) {
+			repaint();
+		}
+		
+		// Redesenhe apenas o que mudou
+		else {
+			layoutBoard();
+			int changed = (b.getBlack() ^ scheduledBlack)
+					| (b.getWhite() ^ scheduledWhite) | (b.getKings() ^ scheduledKings);
+			for (; changed != 0; changed &= changed - 1) {
+				Point p = Board.toPoint(Integer.numberOfTrailingZeros(changed));
+				repaintTile(p);
+			}
+			if (!Objects.equals(selected, scheduledSelected)
+					|| selectionValid != scheduledSelectionValid) {
+				repaintTile(scheduledSelected);
+				repaintTile(selected);
+			}
+			if (game.isP1Turn() != scheduledP1Turn) {
+				repaint(0, offsetY + boxSize * 8 + 2, getWidth(), 15);
+			}
+		}
+		
+		// Guarde o estado pedido
+		this.scheduled = true;
+		this.scheduledBlack = b.getBlack();
+		this.scheduledWhite = b.getWhite();
+		this.scheduledKings = b.getKings();
+		this.scheduledP1Turn = game.isP1Turn();
+		this.scheduledGameOver = isGameOver;
+		this.scheduledSelected = (selected == null)? null : new Point(selected);
+		this.scheduledSelectionValid = selectionValid;
+	}
+	
+	// Pede o redesenho de um ladrilho (se o ponto estiver no tabuleiro).
+	private void repaintTile(Point p) {
+		if (Board.isValidPoint(p)) {
+			repaint(offsetX + p.x * boxSize, offsetY + p.y * boxSize,
+					boxSize, boxSize);
 		}
 	}
 	
@@ -274,6 +603,7 @@ public class CheckerBoard extends JButton {
 	}
 
 	public void setGame(Game game) {
+		cancelPlayer();
 		this.game = (game == null)? new Game() : game;
 	}
 
@@ -290,6 +620,12 @@ public class CheckerBoard extends JButton {
 	}
 
 	public void setPlayer1(Player player1) {
+		if (thinking != null && thinking == this.player1) {
+			cancelPlayer();
+		}
+		if (ponderer != null && ponderer == this.player1) {
+			stopPonder();
+		}
 		this.player1 = (player1 == null)? new HumanPlayer() : player1;
 		if (game.isP1Turn() && !this.player1.isHuman()) {
 			this.selected = null;
@@ -301,6 +637,12 @@ public class CheckerBoard extends JButton {
 	}
 
 	public void setPlayer2(Player player2) {
+		if (thinking != null && thinking == this.player2) {
+			cancelPlayer();
+		}
+		if (ponderer != null && ponderer == this.player2) {
+			stopPonder();
+		}
 		this.player2 = (player2 == null)? new HumanPlayer() : player2;
 		if (!game.isP1Turn() && !this.player2.isHuman()) {
 			this.selected = null;
@@ -317,6 +659,7 @@ public class CheckerBoard extends JButton {
 
 	public void setLightTile(Color lightTile) {
 		this.lightTile = (lightTile == null)? Color.WHITE : lightTile;
+		this.boardImage = null;
 	}
 
 	public Color getDarkTile() {
@@ -325,6 +668,7 @@ public class CheckerBoard extends JButton {
 
 	public void setDarkTile(Color darkTile) {
 		this.darkTile = (darkTile == null)? Color.BLACK : darkTile;
+		this.boardImage = null;
 	}
 
 	// Manipula um clique neste componente no ponto especificado. Se o jogador atual não for humano, esse método não fará nada. Caso contrário, o ponto selecionado é atualizado e um movimento é tentado se o último clique e este estiverem em ladrilhos pretos.
@@ -351,10 +695,13 @@ public class CheckerBoard extends JButton {
 		// Determinar se um movimento deve ser tentado
 		if (Board.isValidPoint(sel) && Board.isValidPoint(selected)) {
 			boolean change = copy.isP1Turn();
-			String expected = copy.getGameState();
+			PositionCodec.encode(copy, expected, 0);
 			boolean move = copy.move(selected, sel);
+			if (move) {
+				PositionCodec.encode(copy, newState, 0);
+			}
 			boolean updated = (move?
-					setGameState(true, copy.getGameState(), expected) : false);
+					setGameState(true, newState, expected) : false);
 			if (updated) {
 			}
 			change = (copy.isP1Turn() != change);
@@ -364,48 +711,18 @@ public class CheckerBoard extends JButton {
 		}
 		
 		// Verifique se a seleção é válida
-		this.selectionValid = isValidSelection(
-				copy.getBoard(), copy.isP1Turn(), selected);
+		this.selectionValid = isValidSelection(game, selected);
 		
 		update();
 	}
 	
-	// Verifica se um ponto selecionado é válido no contexto da vez do jogador atual.
-	// b: a diretoria atual.
-	// isP1Turn: a bandeira indicando se é a vez do jogador 1.
+	// Verifica se um ponto selecionado é válido no contexto da vez do jogador atual, consultando os movimentos legais guardados no jogo.
+	// game: o jogo atual.
 	// selected: o ponto a testar.
 	// verdadeiro se e somente se o ponto selecionado for um verificador que teria permissão para fazer um movimento no turno atual.
-	private boolean isValidSelection(Board b, boolean isP1Turn, Point selected) {
-
-		// casos triviais
-		int i = Board.toIndex(selected), id = b.get(i);
-		if (id == Board.EMPTY || id == Board.INVALID) { // nenhuma peça aqui
-			return false;
-		} else if(isP1Turn ^ (id == Board.BLACK_CHECKER ||
-				id == Board.BLACK_KING)) { // peça errada
-			return false;
-		} else if (!MoveGenerator.getSkips(b, i).isEmpty()) { // pular disponível
-			return true;
-		} else if (MoveGenerator.getMoves(b, i).isEmpty()) { // sem movimentos
-			return false;
-		}
-		
-		// Determine se há um pulo disponível para outra peça
-		List<Point> points = b.find(
-				isP1Turn? Board.BLACK_CHECKER : Board.WHITE_CHECKER);
-		points.addAll(b.find(
-				isP1Turn? Board.BLACK_KING : Board.WHITE_KING));
-		for (Point p : points) {
-			int checker = Board.toIndex(p);
-			if (checker == i) {
-				continue;
-			}
-			if (!MoveGenerator.getSkips(b, checker).isEmpty()) {
-				return false;
-			}
-		}
-
-		return true;
+	private boolean isValidSelection(Game game, Point selected) {
+		int i = Board.toIndex(selected);
+		return Board.isValidIndex(i) && (game.getMovablePieces() & (1 << i)) != 0;
 	}
 
 	// A classe é responsável por responder a eventos de clique no componente do tabuleiro de damas. Ele usa as coordenadas do mouse em relação ao local do componente do tabuleiro de damas.